@@ -1,6 +1,7 @@
 plugins {
     id("java-library")
     id("org.allaymc.gradle.plugin") version "0.2.1"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "Arcadia.ClexaGod.arcadia"
@@ -51,6 +52,18 @@ allay {
     }
 }
 
+configurations {
+    // Benchmarks run outside the server, so they need the provided API and its logging on the classpath
+    named("jmhImplementation") {
+        extendsFrom(configurations.compileOnly.get())
+    }
+}
+
+jmh {
+    jmhVersion = "1.37"
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf())
+}
+
 dependencies {
     compileOnly("org.projectlombok:lombok:1.18.34")
     annotationProcessor("org.projectlombok:lombok:1.18.34")
@@ -0,0 +1,123 @@
+package Arcadia.ClexaGod.arcadia.storage.cache;
+
+import Arcadia.ClexaGod.arcadia.storage.repository.meta.MetaRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache hit throughput of {@link RecordCache} with 1 to 8 reader threads, next to the access-ordered
+ * {@code synchronized} {@link LinkedHashMap} it replaced. Total ops/s should grow with the thread count for
+ * {@code record-cache} while the single monitor keeps {@code synchronized-lru} flat; compare on a machine with at least
+ * eight cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordCacheReadBenchmark {
+
+    @Param({"record-cache", "synchronized-lru"})
+    public String cache;
+
+    @Param({"10000"})
+    public int entries;
+
+    private String[] ids;
+    private Function<String, Object> reader;
+
+    @Setup
+    public void setUp() {
+        ids = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            ids[i] = "player-" + i;
+        }
+        if (cache.equals("record-cache")) {
+            RecordCache<MetaRecord> recordCache = new RecordCache<>(entries * 2, 3600);
+            for (String id : ids) {
+                recordCache.put(new MetaRecord(id, id), false);
+            }
+            reader = id -> recordCache.get(id).orElse(null);
+        } else {
+            SynchronizedLru lru = new SynchronizedLru(entries * 2);
+            for (String id : ids) {
+                lru.put(id, new MetaRecord(id, id));
+            }
+            reader = lru::get;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object read1() {
+        return read();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object read2() {
+        return read();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object read4() {
+        return read();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object read8() {
+        return read();
+    }
+
+    private Object read() {
+        return reader.apply(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    /**
+     * The earlier RecordCache layout: one access-ordered map, every get under its monitor.
+     */
+    private static final class SynchronizedLru {
+
+        private final Map<String, Object> entries;
+
+        SynchronizedLru(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        Object get(String id) {
+            synchronized (entries) {
+                return entries.get(id);
+            }
+        }
+
+        void put(String id, Object value) {
+            synchronized (entries) {
+                entries.put(id, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lane buffer of {@link AsyncWriteQueue}: the preallocated {@link MpscRingBuffer} against the bounded
+ * {@link LinkedBlockingQueue} it replaced, with three producers offering into one consumer. The {@code accepted} and
+ * {@code polled} counters are the useful throughput; offers refused by a full buffer and empty polls are counted
+ * separately. Run with {@code -prof gc} to see the node the linked queue allocates per offer.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LaneBufferBenchmark {
+
+    private static final Object ITEM = new Object();
+
+    @Param({"1024"})
+    public int capacity;
+
+    private MpscRingBuffer<Object> ring;
+    private LinkedBlockingQueue<Object> linked;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = new MpscRingBuffer<>(capacity);
+        linked = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class OfferCounters {
+        public long accepted;
+        public long full;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class PollCounters {
+        public long polled;
+        public long empty;
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(3)
+    public void ringOffer(OfferCounters counters) {
+        if (ring.offer(ITEM)) {
+            counters.accepted++;
+        } else {
+            counters.full++;
+        }
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public void ringPoll(PollCounters counters) {
+        if (ring.poll() != null) {
+            counters.polled++;
+        } else {
+            counters.empty++;
+        }
+    }
+
+    @Benchmark
+    @Group("linked")
+    @GroupThreads(3)
+    public void linkedOffer(OfferCounters counters) {
+        if (linked.offer(ITEM)) {
+            counters.accepted++;
+        } else {
+            counters.full++;
+        }
+    }
+
+    @Benchmark
+    @Group("linked")
+    @GroupThreads(1)
+    public void linkedPoll(PollCounters counters) {
+        if (linked.poll() != null) {
+            counters.polled++;
+        } else {
+            counters.empty++;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package Arcadia.ClexaGod.arcadia.storage.repository.json;
+
+import Arcadia.ClexaGod.arcadia.logging.LogService;
+import Arcadia.ClexaGod.arcadia.storage.repository.meta.MetaJsonCodec;
+import Arcadia.ClexaGod.arcadia.storage.repository.meta.MetaRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Files per second for a full load of a 100k-file JSON repository: {@code parallelism = 1} is the sequential
+ * {@link JsonRepository#streamAll()} walk, higher values run {@link JsonRepository#bulkStream} with virtual-thread
+ * reads and decoding on a pool sized to the cores. The files are written once per trial and stay in the page cache,
+ * so this measures the pipeline rather than the disk; drop caches between runs to see cold reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonBulkLoadBenchmark {
+
+    static final int FILES = 100_000;
+
+    @Param({"1", "8", "32"})
+    public int parallelism;
+
+    @Param({"false", "true"})
+    public boolean ordered;
+
+    private Path root;
+    private JsonRepository<MetaRecord> repository;
+    private ExecutorService io;
+    private ForkJoinPool compute;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("arcadia-bulk-bench");
+        LogService logService = new LogService(LoggerFactory.getLogger(JsonBulkLoadBenchmark.class), null, false);
+        JsonRepository<MetaRecord> writer = new JsonRepository<>("bench", root, new MetaJsonCodec(), logService);
+        for (int i = 0; i < FILES; i++) {
+            writer.save(new MetaRecord("player-" + i, "{\"coins\":" + i + ",\"rank\":\"member\"}"));
+        }
+        writer.close();
+        repository = new JsonRepository<>("bench", root, new MetaJsonCodec(), logService);
+        io = Executors.newVirtualThreadPerTaskExecutor();
+        compute = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        io.shutdownNow();
+        compute.shutdownNow();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public void load(Blackhole blackhole) {
+        try (Stream<MetaRecord> records = parallelism <= 1
+                ? repository.streamAll()
+                : repository.bulkStream(parallelism, ordered, io, compute)) {
+            records.forEach(blackhole::consume);
+        }
+    }
+}
@@ -4,10 +4,16 @@ import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
 import Arcadia.ClexaGod.arcadia.storage.PostgresConfig;
 import Arcadia.ClexaGod.arcadia.storage.StorageType;
 import Arcadia.ClexaGod.arcadia.storage.cache.CacheConfig;
+import Arcadia.ClexaGod.arcadia.storage.cache.CacheEvictionPolicy;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalConfig;
 import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogConfig;
 import Arcadia.ClexaGod.arcadia.logging.LogLevel;
 import Arcadia.ClexaGod.arcadia.storage.queue.QueueFullPolicy;
+import Arcadia.ClexaGod.arcadia.storage.queue.QueueLaneConfig;
+import Arcadia.ClexaGod.arcadia.storage.queue.WritePriority;
+import Arcadia.ClexaGod.arcadia.storage.json.FileDurability;
+import Arcadia.ClexaGod.arcadia.storage.json.FileLockMode;
 import Arcadia.ClexaGod.arcadia.storage.json.JsonShardConfig;
 import Arcadia.ClexaGod.arcadia.storage.json.JsonShardStrategy;
 import Arcadia.ClexaGod.arcadia.storage.cache.CachePolicy;
@@ -42,9 +48,15 @@ public final class CoreConfig {
     private final StorageType storageType;
     private final String storageJsonPath;
     private final JsonShardConfig storageJsonShardConfig;
+    private final FileDurability storageJsonDurability;
+    private final FileLockMode storageJsonLockMode;
     private final int storageQueueMaxSize;
     private final QueueFullPolicy storageQueueFullPolicy;
     private final int storageQueueFullTimeoutMs;
+    private final int storageQueueWorkers;
+    private final int storageQueueBatchSize;
+    private final List<QueueLaneConfig> storageQueueLanes;
+    private final JournalConfig storageJournalConfig;
     private final RetryPolicy storageRetryPolicy;
     private final StorageHealthConfig storageHealthConfig;
     private final StorageSeedConfig storageSeedConfig;
@@ -59,8 +71,11 @@ public final class CoreConfig {
 
     private CoreConfig(String owner, String serverName, boolean debug, String defaultLang,
                        StorageType storageType, String storageJsonPath, JsonShardConfig storageJsonShardConfig,
+                       FileDurability storageJsonDurability, FileLockMode storageJsonLockMode,
                        int storageQueueMaxSize, QueueFullPolicy storageQueueFullPolicy,
-                       int storageQueueFullTimeoutMs, RetryPolicy storageRetryPolicy,
+                       int storageQueueFullTimeoutMs, int storageQueueWorkers,
+                       int storageQueueBatchSize, List<QueueLaneConfig> storageQueueLanes,
+                       JournalConfig storageJournalConfig, RetryPolicy storageRetryPolicy,
                        StorageHealthConfig storageHealthConfig, StorageSeedConfig storageSeedConfig,
                        StorageMigrationConfig storageMigrationConfig, PostgresPoolAutoConfig postgresPoolAutoConfig,
                        PostgresPoolSizing postgresPoolSizing, PostgresConfig postgresConfig,
@@ -72,9 +87,15 @@ public final class CoreConfig {
         this.storageType = storageType;
         this.storageJsonPath = storageJsonPath;
         this.storageJsonShardConfig = storageJsonShardConfig;
+        this.storageJsonDurability = storageJsonDurability;
+        this.storageJsonLockMode = storageJsonLockMode;
         this.storageQueueMaxSize = storageQueueMaxSize;
         this.storageQueueFullPolicy = storageQueueFullPolicy;
         this.storageQueueFullTimeoutMs = storageQueueFullTimeoutMs;
+        this.storageQueueWorkers = storageQueueWorkers;
+        this.storageQueueBatchSize = storageQueueBatchSize;
+        this.storageQueueLanes = List.copyOf(storageQueueLanes);
+        this.storageJournalConfig = storageJournalConfig;
         this.storageRetryPolicy = storageRetryPolicy;
         this.storageHealthConfig = storageHealthConfig;
         this.storageSeedConfig = storageSeedConfig;
@@ -162,6 +183,18 @@ public final class CoreConfig {
                 shardChars,
                 shardMigrate
         );
+        String durabilityRaw = config.getString("storage.json.durability", "none").trim();
+        FileDurability storageJsonDurability = FileDurability.from(durabilityRaw);
+        if (storageJsonDurability == null) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_JSON_DURABILITY_INVALID, durabilityRaw));
+            storageJsonDurability = FileDurability.NONE;
+        }
+        String lockModeRaw = config.getString("storage.json.lock-mode", "file").trim();
+        FileLockMode storageJsonLockMode = FileLockMode.from(lockModeRaw);
+        if (storageJsonLockMode == null) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_JSON_LOCK_MODE_INVALID, lockModeRaw));
+            storageJsonLockMode = FileLockMode.FILE;
+        }
 
         int storageQueueMaxSize = config.getInt("storage.queue.max-size", 5000);
         if (storageQueueMaxSize <= 0) {
@@ -182,6 +215,59 @@ public final class CoreConfig {
             queueFullTimeoutMs = 200;
         }
 
+        int queueWorkers = config.getInt("storage.queue.workers", 1);
+        if (queueWorkers < 1 || queueWorkers > 64) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_QUEUE_WORKERS_INVALID, String.valueOf(queueWorkers)));
+            queueWorkers = 1;
+        }
+
+        int queueBatchSize = config.getInt("storage.queue.batch-size", 100);
+        if (queueBatchSize < 1) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_QUEUE_BATCH_INVALID, String.valueOf(queueBatchSize)));
+            queueBatchSize = 100;
+        }
+
+        List<QueueLaneConfig> queueLanes = new ArrayList<>();
+        for (QueueLaneConfig defaults : QueueLaneConfig.defaults(storageQueueMaxSize, queuePolicy)) {
+            String laneId = defaults.priority().getId();
+            String basePath = "storage.queue.lanes." + laneId + ".";
+            int laneMaxSize = config.getInt(basePath + "max-size", defaults.maxSize());
+            if (laneMaxSize <= 0) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_QUEUE_LANE_INVALID, laneId, "max-size", String.valueOf(laneMaxSize)));
+                laneMaxSize = defaults.maxSize();
+            }
+            String lanePolicyRaw = config.getString(basePath + "on-full", defaults.fullPolicy().getId()).trim();
+            QueueFullPolicy lanePolicy = QueueFullPolicy.from(lanePolicyRaw);
+            if (lanePolicy == null) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_QUEUE_LANE_INVALID, laneId, "on-full", lanePolicyRaw));
+                lanePolicy = defaults.fullPolicy();
+            }
+            int laneWeight = config.getInt(basePath + "weight", defaults.weight());
+            if (laneWeight < 1 || laneWeight > 100) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_QUEUE_LANE_INVALID, laneId, "weight", String.valueOf(laneWeight)));
+                laneWeight = defaults.weight();
+            }
+            queueLanes.add(new QueueLaneConfig(defaults.priority(), laneMaxSize, lanePolicy, laneWeight));
+        }
+
+        boolean journalEnabled = config.getBoolean("storage.journal.enabled", false);
+        String journalPath = config.getString("storage.journal.path", "journal").trim();
+        if (journalPath.isBlank()) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_JOURNAL_PATH_INVALID));
+            journalPath = "journal";
+        }
+        int journalSyncMs = config.getInt("storage.journal.sync-interval-ms", 50);
+        if (journalSyncMs < 1 || journalSyncMs > 10000) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_JOURNAL_SYNC_INVALID, String.valueOf(journalSyncMs)));
+            journalSyncMs = 50;
+        }
+        int journalCompactKb = config.getInt("storage.journal.compact-threshold-kb", 4096);
+        if (journalCompactKb < 64) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_JOURNAL_COMPACT_INVALID, String.valueOf(journalCompactKb)));
+            journalCompactKb = 4096;
+        }
+        JournalConfig journalConfig = new JournalConfig(journalEnabled, journalPath, journalSyncMs, journalCompactKb);
+
         boolean retryEnabled = config.getBoolean("storage.retry.enabled", true);
         int retryAttempts = config.getInt("storage.retry.max-attempts", 3);
         if (retryAttempts < 1) {
@@ -242,12 +328,18 @@ public final class CoreConfig {
             migrationMaxRecords = 10000;
         }
         boolean migrationSkipExisting = config.getBoolean("storage.migration.skip-existing", true);
+        int migrationParallelism = config.getInt("storage.migration.parallelism", 32);
+        if (migrationParallelism < 1 || migrationParallelism > 256) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_STORAGE_MIGRATION_PARALLELISM_INVALID, String.valueOf(migrationParallelism)));
+            migrationParallelism = 32;
+        }
         StorageMigrationConfig migrationConfig = new StorageMigrationConfig(
                 migrationEnabled,
                 migrationDirection,
                 migrationDryRun,
                 migrationMaxRecords,
-                migrationSkipExisting
+                migrationSkipExisting,
+                migrationParallelism
         );
 
         String pgHost = config.getString("storage.postgresql.host", "127.0.0.1").trim();
@@ -391,6 +483,11 @@ public final class CoreConfig {
             issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_WARMUP_DELAY_INVALID, String.valueOf(warmupDelaySeconds)));
             warmupDelaySeconds = 5;
         }
+        int warmupParallelism = config.getInt("cache.warmup.parallelism", 32);
+        if (warmupParallelism < 1 || warmupParallelism > 256) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_WARMUP_PARALLELISM_INVALID, String.valueOf(warmupParallelism)));
+            warmupParallelism = 32;
+        }
         boolean flushOnPlayerQuit = config.getBoolean("cache.flush-on-player-quit", true);
 
         boolean defaultPolicyEnabled = config.getBoolean("cache.policies.default.enabled", true);
@@ -400,7 +497,35 @@ public final class CoreConfig {
             issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_TIMEOUT_INVALID, "default", String.valueOf(defaultFlushTimeoutMs)));
             defaultFlushTimeoutMs = 2000;
         }
-        CachePolicy defaultPolicy = new CachePolicy(defaultPolicyEnabled, defaultFlushOnSave, java.time.Duration.ofMillis(defaultFlushTimeoutMs));
+        String defaultPriorityRaw = config.getString("cache.policies.default.write-priority", "normal").trim();
+        WritePriority defaultWritePriority = WritePriority.from(defaultPriorityRaw);
+        if (defaultWritePriority == null) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_PRIORITY_INVALID, "default", defaultPriorityRaw));
+            defaultWritePriority = WritePriority.NORMAL;
+        }
+        long defaultMaxBytes = config.getLong("cache.policies.default.max-bytes", 0L);
+        if (defaultMaxBytes < 0) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_MAX_BYTES_INVALID, "default", String.valueOf(defaultMaxBytes)));
+            defaultMaxBytes = 0;
+        }
+        int defaultPolicyMaxEntries = readPolicyInt(config, issues, "default", "max-entries", 0);
+        int defaultPolicyTtl = readPolicyInt(config, issues, "default", "ttl-seconds", 0);
+        int defaultPolicyFlushInterval = readPolicyInt(config, issues, "default", "flush-interval-seconds", 0);
+        String defaultEvictionRaw = config.getString("cache.policies.default.eviction", "tinylfu").trim();
+        CacheEvictionPolicy defaultEviction = CacheEvictionPolicy.from(defaultEvictionRaw);
+        if (defaultEviction == null) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_VALUE_INVALID, "default", "eviction", defaultEvictionRaw));
+            defaultEviction = CacheEvictionPolicy.TINY_LFU;
+        }
+        double defaultRefreshAhead = config.getDouble("cache.policies.default.refresh-ahead", 0.0);
+        if (defaultRefreshAhead < 0 || defaultRefreshAhead >= 1) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_VALUE_INVALID, "default", "refresh-ahead",
+                    String.valueOf(defaultRefreshAhead)));
+            defaultRefreshAhead = 0.0;
+        }
+        CachePolicy defaultPolicy = new CachePolicy(defaultPolicyEnabled, defaultFlushOnSave,
+                java.time.Duration.ofMillis(defaultFlushTimeoutMs), defaultWritePriority, defaultMaxBytes,
+                defaultPolicyMaxEntries, defaultPolicyTtl, defaultPolicyFlushInterval, defaultEviction, defaultRefreshAhead);
 
         Map<String, CachePolicy> policyOverrides = new LinkedHashMap<>();
         ConfigSection policySection = config.getSection("cache.policies.repos");
@@ -416,10 +541,55 @@ public final class CoreConfig {
                 issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_TIMEOUT_INVALID, repoName, String.valueOf(timeoutMs)));
                 timeoutMs = defaultFlushTimeoutMs;
             }
-            CachePolicy policy = new CachePolicy(enabled, flushOnSave, java.time.Duration.ofMillis(timeoutMs));
+            String priorityRaw = config.getString(basePath + "write-priority", defaultWritePriority.getId()).trim();
+            WritePriority writePriority = WritePriority.from(priorityRaw);
+            if (writePriority == null) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_PRIORITY_INVALID, repoName, priorityRaw));
+                writePriority = defaultWritePriority;
+            }
+            long maxBytes = config.getLong(basePath + "max-bytes", defaultMaxBytes);
+            if (maxBytes < 0) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_MAX_BYTES_INVALID, repoName, String.valueOf(maxBytes)));
+                maxBytes = defaultMaxBytes;
+            }
+            int policyMaxEntries = readPolicyInt(config, issues, repoName, "max-entries", defaultPolicyMaxEntries);
+            int policyTtl = readPolicyInt(config, issues, repoName, "ttl-seconds", defaultPolicyTtl);
+            int policyFlushInterval = readPolicyInt(config, issues, repoName, "flush-interval-seconds", defaultPolicyFlushInterval);
+            String evictionRaw = config.getString(basePath + "eviction", defaultEviction.getId()).trim();
+            CacheEvictionPolicy eviction = CacheEvictionPolicy.from(evictionRaw);
+            if (eviction == null) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_VALUE_INVALID, repoName, "eviction", evictionRaw));
+                eviction = defaultEviction;
+            }
+            double refreshAhead = config.getDouble(basePath + "refresh-ahead", defaultRefreshAhead);
+            if (refreshAhead < 0 || refreshAhead >= 1) {
+                issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_VALUE_INVALID, repoName, "refresh-ahead",
+                        String.valueOf(refreshAhead)));
+                refreshAhead = defaultRefreshAhead;
+            }
+            CachePolicy policy = new CachePolicy(enabled, flushOnSave, java.time.Duration.ofMillis(timeoutMs), writePriority,
+                    maxBytes, policyMaxEntries, policyTtl, policyFlushInterval, eviction, refreshAhead);
             policyOverrides.put(repoName.toLowerCase(Locale.ROOT), policy);
         }
 
+        long memoryCeilingBytes = config.getLong("cache.memory-ceiling-bytes", 0L);
+        if (memoryCeilingBytes < 0) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_MEMORY_CEILING_INVALID, String.valueOf(memoryCeilingBytes)));
+            memoryCeilingBytes = 0;
+        }
+
+        boolean negativeEnabled = config.getBoolean("cache.negative.enabled", true);
+        int negativeTtlSeconds = config.getInt("cache.negative.ttl-seconds", 30);
+        if (negativeTtlSeconds <= 0) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_NEGATIVE_INVALID, "ttl-seconds", String.valueOf(negativeTtlSeconds)));
+            negativeTtlSeconds = 30;
+        }
+        int negativeMaxEntries = config.getInt("cache.negative.max-entries", 5000);
+        if (negativeMaxEntries <= 0) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_NEGATIVE_INVALID, "max-entries", String.valueOf(negativeMaxEntries)));
+            negativeMaxEntries = 5000;
+        }
+
         CacheConfig cacheConfig = new CacheConfig(
                 cacheEnabled,
                 cacheTtlSeconds,
@@ -428,9 +598,14 @@ public final class CoreConfig {
                 warmupEnabled,
                 warmupMaxEntries,
                 warmupDelaySeconds,
+                warmupParallelism,
                 flushOnPlayerQuit,
                 defaultPolicy,
-                policyOverrides
+                policyOverrides,
+                memoryCeilingBytes,
+                negativeEnabled,
+                negativeTtlSeconds,
+                negativeMaxEntries
         );
 
         String logDefaultRaw = config.getString("logging.default-level", "info").trim();
@@ -475,9 +650,21 @@ public final class CoreConfig {
         }
 
         return new CoreConfig(owner, serverName, debug, defaultLang,
-                storageType, storageJsonPath, storageJsonShardConfig,
-                storageQueueMaxSize, queuePolicy, queueFullTimeoutMs, retryPolicy,
+                storageType, storageJsonPath, storageJsonShardConfig, storageJsonDurability, storageJsonLockMode,
+                storageQueueMaxSize, queuePolicy, queueFullTimeoutMs, queueWorkers, queueBatchSize, queueLanes, journalConfig, retryPolicy,
                 healthConfig, seedConfig, migrationConfig, poolAutoConfig, poolSizing,
                 postgresConfig, cacheConfig, logConfig, moduleToggles, issues);
     }
+
+    private static int readPolicyInt(Config config, List<ConfigIssue> issues, String policyName, String field, int fallback) {
+        String path = "default".equals(policyName)
+                ? "cache.policies.default." + field
+                : "cache.policies.repos." + policyName + "." + field;
+        int value = config.getInt(path, fallback);
+        if (value < 0) {
+            issues.add(new ConfigIssue(LangKeys.LOG_CONFIG_CACHE_POLICY_VALUE_INVALID, policyName, field, String.valueOf(value)));
+            return fallback;
+        }
+        return value;
+    }
 }
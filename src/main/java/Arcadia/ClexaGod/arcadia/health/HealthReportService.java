@@ -14,7 +14,11 @@ import Arcadia.ClexaGod.arcadia.storage.StorageType;
 import Arcadia.ClexaGod.arcadia.storage.cache.CacheConfig;
 import Arcadia.ClexaGod.arcadia.storage.cache.CacheMetrics;
 import Arcadia.ClexaGod.arcadia.storage.cache.StorageCacheManager;
+import Arcadia.ClexaGod.arcadia.storage.journal.WriteJournal;
 import Arcadia.ClexaGod.arcadia.storage.queue.AsyncWriteQueue;
+import Arcadia.ClexaGod.arcadia.storage.queue.QueueLaneConfig;
+import Arcadia.ClexaGod.arcadia.storage.queue.RetryStats;
+import Arcadia.ClexaGod.arcadia.storage.queue.WritePriority;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryPolicy;
 import Arcadia.ClexaGod.arcadia.util.TimeUtil;
 import com.zaxxer.hikari.HikariDataSource;
@@ -32,6 +36,7 @@ import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 
 public final class HealthReportService {
@@ -169,6 +174,39 @@ public final class HealthReportService {
                     value(String.valueOf(queue.getFullTimeoutMs())),
                     formatFlag(queue.isStarted())
             ));
+            lines.add(TextFormat.GRAY + I18nUtil.tr(
+                    sender,
+                    LangKeys.COMMAND_ARCADIA_HEALTH_LINE_QUEUE_PARTITIONS,
+                    value(String.valueOf(queue.getWorkerCount())),
+                    value(String.valueOf(queue.getBatchSize())),
+                    value(formatPartitions(queue.getPartitionSizes()))
+            ));
+            lines.add(TextFormat.GRAY + I18nUtil.tr(
+                    sender,
+                    LangKeys.COMMAND_ARCADIA_HEALTH_LINE_QUEUE_LANES,
+                    value(formatLanes(queue)),
+                    value(String.valueOf(queue.getPromotionsFailed()))
+            ));
+            WriteJournal journal = queue.getJournal();
+            lines.add(TextFormat.GRAY + I18nUtil.tr(
+                    sender,
+                    LangKeys.COMMAND_ARCADIA_HEALTH_LINE_QUEUE_JOURNAL,
+                    formatFlag(journal != null && journal.isOpen()),
+                    value(String.valueOf(journal != null ? journal.getLiveCount() : 0)),
+                    value(String.valueOf(journal != null ? journal.getPendingCount() : 0))
+            ));
+            RetryStats retryStats = queue.getRetryStats();
+            lines.add(TextFormat.GRAY + I18nUtil.tr(
+                    sender,
+                    LangKeys.COMMAND_ARCADIA_HEALTH_LINE_QUEUE_RETRIES,
+                    value(String.valueOf(retryStats.scheduled())),
+                    value(String.valueOf(retryStats.waiting())),
+                    value(String.valueOf(retryStats.superseded())),
+                    value(String.valueOf(retryStats.exhausted())),
+                    value(String.valueOf(retryStats.maxAttempt())),
+                    value(String.valueOf(retryStats.averageDelayMs())),
+                    value(String.valueOf(retryStats.maxDelayMs()))
+            ));
         }
 
         lines.add(section(sender, LangKeys.COMMAND_ARCADIA_HEALTH_SECTION_CACHE));
@@ -198,7 +236,13 @@ public final class HealthReportService {
                     value(String.valueOf(snapshot.evictedExpired())),
                     value(String.valueOf(snapshot.evictedOverflow())),
                     value(String.valueOf(snapshot.lastQueueSize())),
-                    value(String.valueOf(snapshot.maxQueueSize()))
+                    value(String.valueOf(snapshot.maxQueueSize())),
+                    value(String.valueOf(snapshot.admitted())),
+                    value(String.valueOf(snapshot.rejected())),
+                    value(String.valueOf(snapshot.deduplicatedLoads())),
+                    value(String.valueOf(snapshot.negativeHits())),
+                    value(formatPercent(snapshot.negativeHitRate())),
+                    value(String.valueOf(snapshot.refreshes()))
             ));
             if (includePerRepo) {
                 for (CacheMetrics.CacheMetricsSnapshot perRepo : cacheManager.snapshotMetricsPerRepo()) {
@@ -212,8 +256,24 @@ public final class HealthReportService {
                             value(String.valueOf(perRepo.flushes())),
                             value(String.valueOf(perRepo.writeTasks())),
                             value(String.valueOf(perRepo.evictedExpired())),
-                            value(String.valueOf(perRepo.evictedOverflow()))
+                            value(String.valueOf(perRepo.evictedOverflow())),
+                            value(String.valueOf(perRepo.admitted())),
+                            value(String.valueOf(perRepo.rejected())),
+                            value(String.valueOf(perRepo.deduplicatedLoads())),
+                            value(String.valueOf(perRepo.negativeHits())),
+                            value(formatPercent(perRepo.negativeHitRate())),
+                            value(String.valueOf(perRepo.refreshes()))
                     ));
+                    if (perRepo.maxBytes() > 0) {
+                        lines.add(TextFormat.DARK_GRAY + I18nUtil.tr(
+                                sender,
+                                LangKeys.COMMAND_ARCADIA_HEALTH_LINE_CACHE_REPO_MEMORY,
+                                value(perRepo.name()),
+                                value(String.valueOf(perRepo.residentBytes() / 1024)),
+                                value(String.valueOf(perRepo.maxBytes() / 1024)),
+                                value(formatPercent((double) perRepo.residentBytes() / (double) perRepo.maxBytes()))
+                        ));
+                    }
                 }
             }
         }
@@ -341,6 +401,32 @@ public final class HealthReportService {
         return String.format(Locale.ROOT, "%.2f", percent);
     }
 
+    private String formatPartitions(List<Integer> sizes) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < sizes.size(); i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(i).append(':').append(sizes.get(i));
+        }
+        return out.toString();
+    }
+
+    private String formatLanes(AsyncWriteQueue queue) {
+        Map<WritePriority, Integer> sizes = queue.getLaneSizes();
+        StringBuilder out = new StringBuilder();
+        for (QueueLaneConfig lane : queue.getLanes()) {
+            if (!out.isEmpty()) {
+                out.append(", ");
+            }
+            out.append(lane.priority().getId()).append('=')
+                    .append(sizes.getOrDefault(lane.priority(), 0)).append('/').append(lane.maxSize())
+                    .append(' ').append(lane.fullPolicy().getId())
+                    .append(" w").append(lane.weight());
+        }
+        return out.toString();
+    }
+
     private String value(String raw) {
         return TextFormat.WHITE + raw + TextFormat.RESET;
     }
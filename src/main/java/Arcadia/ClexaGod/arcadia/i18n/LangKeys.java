@@ -30,11 +30,16 @@ public final class LangKeys {
     public static final String COMMAND_ARCADIA_HEALTH_LINE_STORAGE_JSON_SHARD = "arcadia:command.arcadia.health.line_storage_json_shard";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_RETRY = "arcadia:command.arcadia.health.line_retry";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_QUEUE = "arcadia:command.arcadia.health.line_queue";
+    public static final String COMMAND_ARCADIA_HEALTH_LINE_QUEUE_PARTITIONS = "arcadia:command.arcadia.health.line_queue_partitions";
+    public static final String COMMAND_ARCADIA_HEALTH_LINE_QUEUE_LANES = "arcadia:command.arcadia.health.line_queue_lanes";
+    public static final String COMMAND_ARCADIA_HEALTH_LINE_QUEUE_JOURNAL = "arcadia:command.arcadia.health.line_queue_journal";
+    public static final String COMMAND_ARCADIA_HEALTH_LINE_QUEUE_RETRIES = "arcadia:command.arcadia.health.line_queue_retries";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_QUEUE_NONE = "arcadia:command.arcadia.health.line_queue_none";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_CACHE = "arcadia:command.arcadia.health.line_cache";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_CACHE_NONE = "arcadia:command.arcadia.health.line_cache_none";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_CACHE_METRICS = "arcadia:command.arcadia.health.line_cache_metrics";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_CACHE_REPO = "arcadia:command.arcadia.health.line_cache_repo";
+    public static final String COMMAND_ARCADIA_HEALTH_LINE_CACHE_REPO_MEMORY = "arcadia:command.arcadia.health.line_cache_repo_memory";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_DB_POOL = "arcadia:command.arcadia.health.line_db_pool";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_CHECK_JSON = "arcadia:command.arcadia.health.line_check_json";
     public static final String COMMAND_ARCADIA_HEALTH_LINE_CHECK_PG = "arcadia:command.arcadia.health.line_check_pg";
@@ -63,12 +68,21 @@ public final class LangKeys {
     public static final String LOG_CONFIG_STORAGE_JSON_SHARD_STRATEGY_INVALID = "arcadia:log.config.storage_json_shard_strategy_invalid";
     public static final String LOG_CONFIG_STORAGE_JSON_SHARD_DEPTH_INVALID = "arcadia:log.config.storage_json_shard_depth_invalid";
     public static final String LOG_CONFIG_STORAGE_JSON_SHARD_CHARS_INVALID = "arcadia:log.config.storage_json_shard_chars_invalid";
+    public static final String LOG_CONFIG_STORAGE_JSON_DURABILITY_INVALID = "arcadia:log.config.storage_json_durability_invalid";
+    public static final String LOG_CONFIG_STORAGE_JSON_LOCK_MODE_INVALID = "arcadia:log.config.storage_json_lock_mode_invalid";
     public static final String LOG_CONFIG_STORAGE_QUEUE_MAX_INVALID = "arcadia:log.config.storage_queue_max_invalid";
     public static final String LOG_CONFIG_STORAGE_QUEUE_ON_FULL_INVALID = "arcadia:log.config.storage_queue_on_full_invalid";
     public static final String LOG_CONFIG_STORAGE_QUEUE_TIMEOUT_INVALID = "arcadia:log.config.storage_queue_timeout_invalid";
+    public static final String LOG_CONFIG_STORAGE_QUEUE_WORKERS_INVALID = "arcadia:log.config.storage_queue_workers_invalid";
+    public static final String LOG_CONFIG_STORAGE_QUEUE_BATCH_INVALID = "arcadia:log.config.storage_queue_batch_invalid";
+    public static final String LOG_CONFIG_STORAGE_QUEUE_LANE_INVALID = "arcadia:log.config.storage_queue_lane_invalid";
+    public static final String LOG_CONFIG_STORAGE_JOURNAL_PATH_INVALID = "arcadia:log.config.storage_journal_path_invalid";
+    public static final String LOG_CONFIG_STORAGE_JOURNAL_SYNC_INVALID = "arcadia:log.config.storage_journal_sync_invalid";
+    public static final String LOG_CONFIG_STORAGE_JOURNAL_COMPACT_INVALID = "arcadia:log.config.storage_journal_compact_invalid";
     public static final String LOG_CONFIG_STORAGE_HEALTH_TIMEOUT_INVALID = "arcadia:log.config.storage_health_timeout_invalid";
     public static final String LOG_CONFIG_STORAGE_MIGRATION_DIRECTION_INVALID = "arcadia:log.config.storage_migration_direction_invalid";
     public static final String LOG_CONFIG_STORAGE_MIGRATION_MAX_INVALID = "arcadia:log.config.storage_migration_max_invalid";
+    public static final String LOG_CONFIG_STORAGE_MIGRATION_PARALLELISM_INVALID = "arcadia:log.config.storage_migration_parallelism_invalid";
     public static final String LOG_CONFIG_STORAGE_POSTGRES_HOST_INVALID = "arcadia:log.config.storage_postgres_host_invalid";
     public static final String LOG_CONFIG_STORAGE_POSTGRES_PORT_INVALID = "arcadia:log.config.storage_postgres_port_invalid";
     public static final String LOG_CONFIG_STORAGE_POSTGRES_DB_INVALID = "arcadia:log.config.storage_postgres_db_invalid";
@@ -80,10 +94,16 @@ public final class LangKeys {
     public static final String LOG_CONFIG_STORAGE_RETRY_JITTER_INVALID = "arcadia:log.config.storage_retry_jitter_invalid";
     public static final String LOG_CONFIG_CACHE_TTL_INVALID = "arcadia:log.config.cache_ttl_invalid";
     public static final String LOG_CONFIG_CACHE_MAX_ENTRIES_INVALID = "arcadia:log.config.cache_max_entries_invalid";
+    public static final String LOG_CONFIG_CACHE_MEMORY_CEILING_INVALID = "arcadia:log.config.cache_memory_ceiling_invalid";
+    public static final String LOG_CONFIG_CACHE_NEGATIVE_INVALID = "arcadia:log.config.cache_negative_invalid";
     public static final String LOG_CONFIG_CACHE_FLUSH_INTERVAL_INVALID = "arcadia:log.config.cache_flush_interval_invalid";
     public static final String LOG_CONFIG_CACHE_WARMUP_MAX_INVALID = "arcadia:log.config.cache_warmup_max_invalid";
     public static final String LOG_CONFIG_CACHE_WARMUP_DELAY_INVALID = "arcadia:log.config.cache_warmup_delay_invalid";
+    public static final String LOG_CONFIG_CACHE_WARMUP_PARALLELISM_INVALID = "arcadia:log.config.cache_warmup_parallelism_invalid";
     public static final String LOG_CONFIG_CACHE_POLICY_TIMEOUT_INVALID = "arcadia:log.config.cache_policy_timeout_invalid";
+    public static final String LOG_CONFIG_CACHE_POLICY_PRIORITY_INVALID = "arcadia:log.config.cache_policy_priority_invalid";
+    public static final String LOG_CONFIG_CACHE_POLICY_MAX_BYTES_INVALID = "arcadia:log.config.cache_policy_max_bytes_invalid";
+    public static final String LOG_CONFIG_CACHE_POLICY_VALUE_INVALID = "arcadia:log.config.cache_policy_value_invalid";
     public static final String LOG_CONFIG_LOG_LEVEL_INVALID = "arcadia:log.config.log_level_invalid";
     public static final String LOG_CONFIG_LOG_CATEGORY_INVALID = "arcadia:log.config.log_category_invalid";
 
@@ -101,20 +121,41 @@ public final class LangKeys {
     public static final String LOG_STORAGE_JSON_READ_FAILED = "arcadia:log.storage.json_read_failed";
     public static final String LOG_STORAGE_JSON_WRITE_FAILED = "arcadia:log.storage.json_write_failed";
     public static final String LOG_STORAGE_JSON_DELETE_FAILED = "arcadia:log.storage.json_delete_failed";
+    public static final String LOG_STORAGE_JSON_MANIFEST_FAILED = "arcadia:log.storage.json_manifest_failed";
+    public static final String LOG_STORAGE_JSON_MANIFEST_REBUILD = "arcadia:log.storage.json_manifest_rebuild";
+    public static final String LOG_STORAGE_JSON_LOCKS_CLEANED = "arcadia:log.storage.json_locks_cleaned";
+    public static final String LOG_STORAGE_JSON_LOCKS_CLEANUP_FAILED = "arcadia:log.storage.json_locks_cleanup_failed";
+    public static final String LOG_STORAGE_JSON_TEMP_CLEANED = "arcadia:log.storage.json_temp_cleaned";
+    public static final String LOG_STORAGE_JSON_TEMP_CLEANUP_FAILED = "arcadia:log.storage.json_temp_cleanup_failed";
+    public static final String LOG_STORAGE_JSON_OWNER_SHARED = "arcadia:log.storage.json_owner_shared";
+    public static final String LOG_STORAGE_JSON_OWNER_EXCLUSIVE = "arcadia:log.storage.json_owner_exclusive";
+    public static final String LOG_STORAGE_JSON_OWNER_FAILED = "arcadia:log.storage.json_owner_failed";
+    public static final String LOG_STORAGE_INDEX_REBUILD = "arcadia:log.storage.index_rebuild";
+    public static final String LOG_STORAGE_INDEX_FAILED = "arcadia:log.storage.index_failed";
     public static final String LOG_STORAGE_JSON_SHARD_MIGRATE_FAILED = "arcadia:log.storage.json_shard_migrate_failed";
     public static final String LOG_STORAGE_POSTGRES_READ_FAILED = "arcadia:log.storage.postgres_read_failed";
     public static final String LOG_STORAGE_POSTGRES_WRITE_FAILED = "arcadia:log.storage.postgres_write_failed";
     public static final String LOG_STORAGE_POSTGRES_DELETE_FAILED = "arcadia:log.storage.postgres_delete_failed";
+    public static final String LOG_STORAGE_POSTGRES_BATCH_FALLBACK = "arcadia:log.storage.postgres_batch_fallback";
     public static final String LOG_STORAGE_POSTGRES_EXISTS_FAILED = "arcadia:log.storage.postgres_exists_failed";
     public static final String LOG_STORAGE_QUEUE_STARTED = "arcadia:log.storage.queue_started";
     public static final String LOG_STORAGE_QUEUE_STOPPING = "arcadia:log.storage.queue_stopping";
     public static final String LOG_STORAGE_QUEUE_STOPPED = "arcadia:log.storage.queue_stopped";
     public static final String LOG_STORAGE_QUEUE_FULL = "arcadia:log.storage.queue_full";
     public static final String LOG_STORAGE_QUEUE_TASK_FAILED = "arcadia:log.storage.queue_task_failed";
+    public static final String LOG_STORAGE_QUEUE_BATCH_FAILED = "arcadia:log.storage.queue_batch_failed";
     public static final String LOG_STORAGE_QUEUE_SHUTDOWN_TIMEOUT = "arcadia:log.storage.queue_shutdown_timeout";
     public static final String LOG_STORAGE_QUEUE_FORCE_DRAIN = "arcadia:log.storage.queue_force_drain";
     public static final String LOG_STORAGE_QUEUE_FORCE_DRAIN_COMPLETE = "arcadia:log.storage.queue_force_drain_complete";
     public static final String LOG_STORAGE_QUEUE_FULL_TIMEOUT = "arcadia:log.storage.queue_full_timeout";
+    public static final String LOG_STORAGE_JOURNAL_OPENED = "arcadia:log.storage.journal_opened";
+    public static final String LOG_STORAGE_JOURNAL_OPEN_FAILED = "arcadia:log.storage.journal_open_failed";
+    public static final String LOG_STORAGE_JOURNAL_WRITE_FAILED = "arcadia:log.storage.journal_write_failed";
+    public static final String LOG_STORAGE_JOURNAL_CORRUPT_LINE = "arcadia:log.storage.journal_corrupt_line";
+    public static final String LOG_STORAGE_JOURNAL_ENCODE_FAILED = "arcadia:log.storage.journal_encode_failed";
+    public static final String LOG_STORAGE_JOURNAL_REPLAYED = "arcadia:log.storage.journal_replayed";
+    public static final String LOG_STORAGE_JOURNAL_REPLAY_FAILED = "arcadia:log.storage.journal_replay_failed";
+    public static final String LOG_STORAGE_JOURNAL_REPLAY_SKIPPED = "arcadia:log.storage.journal_replay_skipped";
     public static final String LOG_STORAGE_HEALTH_JSON_OK = "arcadia:log.storage.health.json_ok";
     public static final String LOG_STORAGE_HEALTH_JSON_FAIL = "arcadia:log.storage.health.json_fail";
     public static final String LOG_STORAGE_HEALTH_POSTGRES_OK = "arcadia:log.storage.health.postgres_ok";
@@ -131,6 +172,7 @@ public final class LangKeys {
     public static final String LOG_STORAGE_CACHE_FLUSH = "arcadia:log.storage.cache_flush";
     public static final String LOG_STORAGE_CACHE_OVERFLOW = "arcadia:log.storage.cache_overflow";
     public static final String LOG_STORAGE_CACHE_FLUSH_ON_SAVE_FAILED = "arcadia:log.storage.cache_flush_on_save_failed";
+    public static final String LOG_STORAGE_CACHE_REFRESH_FAILED = "arcadia:log.storage.cache_refresh_failed";
     public static final String LOG_STORAGE_CACHE_WARMUP_START = "arcadia:log.storage.cache_warmup_start";
     public static final String LOG_STORAGE_CACHE_WARMUP_COMPLETE = "arcadia:log.storage.cache_warmup_complete";
     public static final String LOG_STORAGE_RETRYING = "arcadia:log.storage.retrying";
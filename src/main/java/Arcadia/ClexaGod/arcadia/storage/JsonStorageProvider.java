@@ -1,21 +1,34 @@
 package Arcadia.ClexaGod.arcadia.storage;
 
 import Arcadia.ClexaGod.arcadia.storage.json.JsonShardConfig;
+import Arcadia.ClexaGod.arcadia.storage.repository.json.JsonRepository;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 @RequiredArgsConstructor
 public final class JsonStorageProvider implements StorageProvider {
 
+    static final String OWNER_FILE = ".arcadia-owner";
+    static final String OPEN_MARKER = ".arcadia-open";
+
     @Getter
     private final Path rootPath;
     @Getter
     private final JsonShardConfig shardConfig;
     private boolean ready;
+    private FileChannel ownerChannel;
+    private FileLock ownerLock;
+    private Path openMarker;
 
     @Override
     public StorageType getType() {
@@ -32,12 +45,114 @@ public final class JsonStorageProvider implements StorageProvider {
 
     @Override
     public void close() {
+        // Runs after the write queue drained, so the manifests are complete
+        JsonRepository.closeAll(rootPath);
+        clearOpenMarker();
+        releaseOwnership();
         ready = false;
     }
 
+    /**
+     * Registers this server on the data folder until {@link #close()}: exclusively for the process lock mode, which
+     * relies on being the only writer, and shared for the OS lock modes.
+     *
+     * @return false when another server holds the folder in a conflicting way
+     */
+    public boolean claimOwnership(boolean exclusive) throws IOException {
+        releaseOwnership();
+        FileChannel channel = FileChannel.open(rootPath.resolve(OWNER_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock(0, Long.MAX_VALUE, !exclusive);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            return false;
+        }
+        ownerChannel = channel;
+        ownerLock = lock;
+        return true;
+    }
+
+    /**
+     * Leaves a {@value #OPEN_MARKER}.&lt;pid&gt; file in the data folder until {@link #close()}. Markers of servers that
+     * are no longer running mean they stopped without closing storage and may have left temp files behind.
+     */
+    public OpenState markOpen() throws IOException {
+        Path own = rootPath.resolve(OPEN_MARKER + "." + ProcessHandle.current().pid());
+        List<Path> stale = new ArrayList<>();
+        boolean unclean = false;
+        boolean othersRunning = false;
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(rootPath, OPEN_MARKER + ".*")) {
+            for (Path marker : markers) {
+                if (marker.equals(own)) {
+                    unclean = true;
+                } else if (isLive(marker)) {
+                    othersRunning = true;
+                } else {
+                    unclean = true;
+                    stale.add(marker);
+                }
+            }
+        }
+        Files.writeString(own, "");
+        openMarker = own;
+        return new OpenState(unclean, othersRunning, stale);
+    }
+
+    private void clearOpenMarker() {
+        if (openMarker == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(openMarker);
+        } catch (IOException ignored) {
+            // Only costs a temp file sweep on the next start
+        }
+        openMarker = null;
+    }
+
+    private static boolean isLive(Path marker) {
+        String name = marker.getFileName().toString();
+        try {
+            long pid = Long.parseLong(name.substring(OPEN_MARKER.length() + 1));
+            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void releaseOwnership() {
+        try {
+            if (ownerLock != null) {
+                ownerLock.release();
+            }
+            if (ownerChannel != null) {
+                ownerChannel.close();
+            }
+        } catch (IOException ignored) {
+            // Closing the channel drops the lock either way
+        } finally {
+            ownerLock = null;
+            ownerChannel = null;
+        }
+    }
+
     @Override
     public boolean isReady() {
         return ready;
     }
 
+    /**
+     * @param unclean a previous server stopped without closing storage
+     * @param othersRunning another live server uses the folder, so fresh temp files may still be in use
+     * @param staleMarkers markers of stopped servers, to delete once their leftovers are gone
+     */
+    public record OpenState(boolean unclean, boolean othersRunning, List<Path> staleMarkers) {
+    }
+
 }
@@ -6,9 +6,15 @@ import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogService;
 import Arcadia.ClexaGod.arcadia.storage.cache.CachePolicy;
 import Arcadia.ClexaGod.arcadia.storage.cache.StorageCacheManager;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalConfig;
+import Arcadia.ClexaGod.arcadia.storage.journal.WriteJournal;
+import Arcadia.ClexaGod.arcadia.storage.json.AtomicFileWriter;
+import Arcadia.ClexaGod.arcadia.storage.json.FileLockMode;
 import Arcadia.ClexaGod.arcadia.storage.queue.AsyncWriteQueue;
 import Arcadia.ClexaGod.arcadia.storage.queue.QueueFullPolicy;
+import Arcadia.ClexaGod.arcadia.storage.queue.QueueLaneConfig;
 import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+import Arcadia.ClexaGod.arcadia.storage.repository.StorageFutures;
 import Arcadia.ClexaGod.arcadia.storage.repository.StorageRepository;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryPolicy;
 import Arcadia.ClexaGod.arcadia.storage.pool.PostgresPoolSizing;
@@ -18,15 +24,25 @@ import org.allaymc.api.message.I18n;
 import org.allaymc.api.scheduler.TaskCreator;
 import org.allaymc.api.server.Server;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RequiredArgsConstructor
 public final class StorageManager {
 
+    private static final Duration SHARED_TEMP_FILE_AGE = Duration.ofMinutes(1);
+
     private final LogService logService;
     private final Path dataFolder;
     private final TaskCreator taskCreator;
+    private final AtomicBoolean lockCleanupDone = new AtomicBoolean();
     @Getter
     private AsyncWriteQueue writeQueue;
     private StorageProvider provider;
@@ -39,19 +55,29 @@ public final class StorageManager {
         int maxQueueSize = config.getStorageQueueMaxSize();
         QueueFullPolicy queuePolicy = config.getStorageQueueFullPolicy();
         int queueTimeoutMs = config.getStorageQueueFullTimeoutMs();
+        int queueWorkers = config.getStorageQueueWorkers();
+        int queueBatchSize = config.getStorageQueueBatchSize();
+        List<QueueLaneConfig> queueLanes = config.getStorageQueueLanes();
         if (writeQueue == null
                 || writeQueue.getMaxQueueSize() != maxQueueSize
                 || writeQueue.getFullPolicy() != queuePolicy
-                || writeQueue.getFullTimeoutMs() != queueTimeoutMs) {
+                || writeQueue.getFullTimeoutMs() != queueTimeoutMs
+                || writeQueue.getWorkerCount() != queueWorkers
+                || writeQueue.getBatchSize() != queueBatchSize
+                || !writeQueue.getLanes().equals(queueLanes)) {
             if (writeQueue != null && writeQueue.isStarted()) {
                 writeQueue.shutdown(Duration.ofSeconds(10));
             }
-            writeQueue = new AsyncWriteQueue(Server.getInstance().getVirtualThreadPool(), logService, maxQueueSize, queuePolicy, queueTimeoutMs);
+            writeQueue = new AsyncWriteQueue(Server.getInstance().getVirtualThreadPool(), logService, maxQueueSize, queuePolicy,
+                    queueTimeoutMs, queueWorkers, queueBatchSize, queueLanes);
         }
         if (!writeQueue.isStarted()) {
+            writeQueue.setJournal(createJournal(config.getStorageJournalConfig()));
             writeQueue.start();
         }
         retryPolicy = config.getStorageRetryPolicy();
+        AtomicFileWriter.setDurability(config.getStorageJsonDurability());
+        AtomicFileWriter.setLockMode(config.getStorageJsonLockMode());
         StorageType requested = config.getStorageType();
         logService.info(LogCategory.STORAGE, I18n.get().tr(LangKeys.LOG_STORAGE_SELECTED, requested.getId()));
         if (requested == StorageType.POSTGRESQL) {
@@ -84,6 +110,10 @@ public final class StorageManager {
             }
         }
 
+        claimJsonFolder();
+        cleanupLockFiles();
+        cleanupTempFiles();
+
         if (cacheManager == null) {
             cacheManager = new StorageCacheManager(
                     config.getCacheConfig(),
@@ -148,6 +178,128 @@ public final class StorageManager {
         }
     }
 
+    /**
+     * The process lock mode skips OS locks and is only safe while this server is the folder's single user, so it
+     * needs an exclusive claim and falls back to the file mode when another server uses the folder.
+     */
+    private void claimJsonFolder() {
+        if (!(provider instanceof JsonStorageProvider json) || !json.isReady()) {
+            return;
+        }
+        String root = json.getRootPath().toString();
+        boolean exclusive = AtomicFileWriter.getLockMode() == FileLockMode.PROCESS;
+        try {
+            if (json.claimOwnership(exclusive)) {
+                return;
+            }
+            if (exclusive) {
+                logService.warn(LogCategory.STORAGE, I18n.get().tr(LangKeys.LOG_STORAGE_JSON_OWNER_SHARED, root));
+                AtomicFileWriter.setLockMode(FileLockMode.FILE);
+                json.claimOwnership(false);
+            } else {
+                logService.warn(LogCategory.STORAGE, I18n.get().tr(LangKeys.LOG_STORAGE_JSON_OWNER_EXCLUSIVE, root));
+            }
+        } catch (IOException | RuntimeException e) {
+            logService.warn(LogCategory.STORAGE, I18n.get().tr(LangKeys.LOG_STORAGE_JSON_OWNER_FAILED, root), e);
+        }
+    }
+
+    /**
+     * Removes the per-record .lock sidecars left by the file lock mode in the background. The sweep marks the data
+     * folder once it finished, so later starts skip the walk until the file lock mode is used again.
+     */
+    private void cleanupLockFiles() {
+        if (!(provider instanceof JsonStorageProvider json) || !json.isReady()) {
+            return;
+        }
+        Path root = json.getRootPath();
+        if (AtomicFileWriter.getLockMode() == FileLockMode.FILE) {
+            try {
+                AtomicFileWriter.resetLockSweep(root);
+            } catch (IOException e) {
+                logService.warn(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_JSON_LOCKS_CLEANUP_FAILED, root.toString()), e);
+            }
+            return;
+        }
+        if (!lockCleanupDone.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            StorageFutures.io().execute(() -> {
+                try {
+                    int removed = AtomicFileWriter.deleteStaleLockFiles(root);
+                    if (removed > 0) {
+                        logService.info(LogCategory.STORAGE,
+                                I18n.get().tr(LangKeys.LOG_STORAGE_JSON_LOCKS_CLEANED, removed, root.toString()));
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    lockCleanupDone.set(false);
+                    logService.warn(LogCategory.STORAGE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_JSON_LOCKS_CLEANUP_FAILED, root.toString()), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lockCleanupDone.set(false);
+        }
+    }
+
+    /**
+     * After a server stopped without closing storage, deletes the temp files its interrupted writes left in the JSON
+     * folder, in the background. Files younger than this server are kept, and while other servers share the folder
+     * so is anything from the last minute.
+     */
+    private void cleanupTempFiles() {
+        if (!(provider instanceof JsonStorageProvider json) || !json.isReady()) {
+            return;
+        }
+        Path root = json.getRootPath();
+        JsonStorageProvider.OpenState state;
+        try {
+            state = json.markOpen();
+        } catch (IOException e) {
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_TEMP_CLEANUP_FAILED, root.toString()), e);
+            return;
+        }
+        if (!state.unclean()) {
+            return;
+        }
+        Instant started = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        Instant cutoff = state.othersRunning() ? min(started, Instant.now().minus(SHARED_TEMP_FILE_AGE)) : started;
+        try {
+            StorageFutures.io().execute(() -> {
+                try {
+                    int removed = AtomicFileWriter.deleteOrphanedTempFiles(root, cutoff);
+                    for (Path marker : state.staleMarkers()) {
+                        Files.deleteIfExists(marker);
+                    }
+                    if (removed > 0) {
+                        logService.info(LogCategory.STORAGE,
+                                I18n.get().tr(LangKeys.LOG_STORAGE_JSON_TEMP_CLEANED, removed, root.toString()));
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    logService.warn(LogCategory.STORAGE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_JSON_TEMP_CLEANUP_FAILED, root.toString()), e);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // The stale markers stay, so the next start sweeps again
+        }
+    }
+
+    private static Instant min(Instant first, Instant second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private WriteJournal createJournal(JournalConfig journalConfig) {
+        if (journalConfig == null || !journalConfig.isEnabled()) {
+            return null;
+        }
+        return new WriteJournal(resolvePath(journalConfig.getPath()), logService,
+                journalConfig.getSyncIntervalMs(), journalConfig.getCompactThresholdKb());
+    }
+
     private StorageProvider createProvider(StorageType type, CoreConfig config) {
         if (type == StorageType.JSON) {
             Path jsonPath = resolvePath(config.getStorageJsonPath());
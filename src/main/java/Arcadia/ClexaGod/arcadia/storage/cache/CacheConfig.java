@@ -17,9 +17,15 @@ public final class CacheConfig {
     private final boolean warmupEnabled;
     private final int warmupMaxEntries;
     private final int warmupDelaySeconds;
+    private final int warmupParallelism;
     private final boolean flushOnPlayerQuit;
     private final CachePolicy defaultPolicy;
     private final Map<String, CachePolicy> policies;
+    // Shared byte ceiling across all repository caches, split by recent hit rate; 0 disables rebalancing.
+    private final long memoryCeilingBytes;
+    private final boolean negativeEnabled;
+    private final int negativeTtlSeconds;
+    private final int negativeMaxEntries;
 
     public CachePolicy resolvePolicy(String repositoryName) {
         CachePolicy fallback = defaultPolicy != null ? defaultPolicy : CachePolicy.defaultPolicy();
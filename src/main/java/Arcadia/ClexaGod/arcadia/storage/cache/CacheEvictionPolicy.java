@@ -0,0 +1,37 @@
+package Arcadia.ClexaGod.arcadia.storage.cache;
+
+import java.util.Locale;
+
+public enum CacheEvictionPolicy {
+    /**
+     * Frequency-filtered admission; scans do not displace the hot set.
+     */
+    TINY_LFU("tinylfu"),
+    /**
+     * Every newcomer is admitted and the least recently used clean entry leaves first.
+     */
+    LRU("lru");
+
+    private final String id;
+
+    CacheEvictionPolicy(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static CacheEvictionPolicy from(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String value = raw.trim().toLowerCase(Locale.ROOT);
+        for (CacheEvictionPolicy policy : values()) {
+            if (policy.id.equals(value)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
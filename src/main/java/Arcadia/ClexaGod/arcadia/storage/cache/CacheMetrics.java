@@ -1,6 +1,7 @@
 package Arcadia.ClexaGod.arcadia.storage.cache;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 public final class CacheMetrics {
@@ -11,8 +12,15 @@ public final class CacheMetrics {
     private final LongAdder writeTasks = new LongAdder();
     private final LongAdder evictedExpired = new LongAdder();
     private final LongAdder evictedOverflow = new LongAdder();
+    private final LongAdder deduplicatedLoads = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
     private final AtomicInteger lastQueueSize = new AtomicInteger();
     private final AtomicInteger maxQueueSize = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicLong maxBytes = new AtomicLong();
 
     public void recordHit() {
         hits.increment();
@@ -22,6 +30,24 @@ public final class CacheMetrics {
         misses.increment();
     }
 
+    /**
+     * A miss that joined a backend read already in flight for the same id instead of starting its own.
+     */
+    public void recordDeduplicatedLoad() {
+        deduplicatedLoads.increment();
+    }
+
+    /**
+     * A miss answered from the negative cache without asking the backend.
+     */
+    public void recordNegativeHit() {
+        negativeHits.increment();
+    }
+
+    public void recordRefresh() {
+        refreshes.increment();
+    }
+
     public void recordFlush() {
         flushes.increment();
     }
@@ -52,11 +78,26 @@ public final class CacheMetrics {
         maxQueueSize.updateAndGet(current -> Math.max(current, size));
     }
 
+    /**
+     * Admission filter totals from the cache: newcomers that displaced a main-region entry, and newcomers that were
+     * dropped because they were not more popular than the entry they would have replaced.
+     */
+    public void recordAdmissions(long admittedTotal, long rejectedTotal) {
+        admitted.set(admittedTotal);
+        rejected.set(rejectedTotal);
+    }
+
+    public void recordResidentBytes(long resident, long budget) {
+        residentBytes.set(Math.max(0, resident));
+        maxBytes.set(Math.max(0, budget));
+    }
+
     public CacheMetricsSnapshot snapshot(String name) {
         long hitValue = hits.sum();
         long missValue = misses.sum();
         long total = hitValue + missValue;
         double hitRate = total == 0 ? 0.0 : (double) hitValue / (double) total;
+        long negativeHitValue = negativeHits.sum();
         return new CacheMetricsSnapshot(
                 name,
                 hitValue,
@@ -67,7 +108,15 @@ public final class CacheMetrics {
                 evictedExpired.sum(),
                 evictedOverflow.sum(),
                 lastQueueSize.get(),
-                maxQueueSize.get()
+                maxQueueSize.get(),
+                admitted.get(),
+                rejected.get(),
+                residentBytes.get(),
+                maxBytes.get(),
+                deduplicatedLoads.sum(),
+                negativeHitValue,
+                missValue == 0 ? 0.0 : (double) negativeHitValue / (double) missValue,
+                refreshes.sum()
         );
     }
 
@@ -81,7 +130,15 @@ public final class CacheMetrics {
             long evictedExpired,
             long evictedOverflow,
             int lastQueueSize,
-            int maxQueueSize
+            int maxQueueSize,
+            long admitted,
+            long rejected,
+            long residentBytes,
+            long maxBytes,
+            long deduplicatedLoads,
+            long negativeHits,
+            double negativeHitRate,
+            long refreshes
     ) {
     }
 }
@@ -1,13 +1,71 @@
 package Arcadia.ClexaGod.arcadia.storage.cache;
 
+import Arcadia.ClexaGod.arcadia.storage.queue.WritePriority;
+
 import java.time.Duration;
 
-public record CachePolicy(boolean enabled, boolean flushOnSave, Duration flushTimeout) {
+/**
+ * @param maxBytes             byte budget for this repository's cache, weighed by its {@link CacheWeigher}; 0 means no budget
+ * @param maxEntries           entry limit for this repository's cache; 0 uses cache.max-entries
+ * @param ttlSeconds           TTL for clean entries; 0 uses cache.ttl-seconds
+ * @param flushIntervalSeconds dirty flush interval; 0 uses cache.flush-interval-seconds
+ * @param refreshAhead         fraction of the TTL after which a hit reloads the entry in the background; 0 disables it
+ */
+public record CachePolicy(boolean enabled, boolean flushOnSave, Duration flushTimeout, WritePriority writePriority,
+                          long maxBytes, int maxEntries, int ttlSeconds, int flushIntervalSeconds,
+                          CacheEvictionPolicy eviction, double refreshAhead) {
 
     public CachePolicy {
         if (flushTimeout == null || flushTimeout.isZero() || flushTimeout.isNegative()) {
             flushTimeout = Duration.ofSeconds(2);
         }
+        if (writePriority == null) {
+            writePriority = WritePriority.NORMAL;
+        }
+        if (maxBytes < 0) {
+            maxBytes = 0;
+        }
+        maxEntries = Math.max(0, maxEntries);
+        ttlSeconds = Math.max(0, ttlSeconds);
+        flushIntervalSeconds = Math.max(0, flushIntervalSeconds);
+        if (eviction == null) {
+            eviction = CacheEvictionPolicy.TINY_LFU;
+        }
+        if (!(refreshAhead > 0 && refreshAhead < 1)) {
+            refreshAhead = 0;
+        }
+    }
+
+    public CachePolicy(boolean enabled, boolean flushOnSave, Duration flushTimeout, WritePriority writePriority,
+                       long maxBytes, int maxEntries, int ttlSeconds, int flushIntervalSeconds,
+                       CacheEvictionPolicy eviction) {
+        this(enabled, flushOnSave, flushTimeout, writePriority, maxBytes, maxEntries, ttlSeconds, flushIntervalSeconds,
+                eviction, 0);
+    }
+
+    public CachePolicy(boolean enabled, boolean flushOnSave, Duration flushTimeout, WritePriority writePriority,
+                       long maxBytes) {
+        this(enabled, flushOnSave, flushTimeout, writePriority, maxBytes, 0, 0, 0, CacheEvictionPolicy.TINY_LFU);
+    }
+
+    public CachePolicy(boolean enabled, boolean flushOnSave, Duration flushTimeout, WritePriority writePriority) {
+        this(enabled, flushOnSave, flushTimeout, writePriority, 0);
+    }
+
+    public CachePolicy(boolean enabled, boolean flushOnSave, Duration flushTimeout) {
+        this(enabled, flushOnSave, flushTimeout, WritePriority.NORMAL);
+    }
+
+    public int resolveMaxEntries(CacheConfig config) {
+        return maxEntries > 0 ? maxEntries : config.getMaxEntries();
+    }
+
+    public int resolveTtlSeconds(CacheConfig config) {
+        return ttlSeconds > 0 ? ttlSeconds : config.getTtlSeconds();
+    }
+
+    public int resolveFlushIntervalSeconds(CacheConfig config) {
+        return flushIntervalSeconds > 0 ? flushIntervalSeconds : config.getFlushIntervalSeconds();
     }
 
     public static CachePolicy defaultPolicy() {
@@ -0,0 +1,40 @@
+package Arcadia.ClexaGod.arcadia.storage.cache;
+
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+import Arcadia.ClexaGod.arcadia.storage.repository.json.JsonCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Estimates the heap footprint of a cached record in bytes. Only consulted when the repository has a byte budget.
+ */
+@FunctionalInterface
+public interface CacheWeigher<T extends StorageRecord> {
+
+    // Map node, cache entry and key string, roughly.
+    long ENTRY_OVERHEAD_BYTES = 128;
+    long FALLBACK_BYTES = 1024;
+
+    long weigh(T record);
+
+    static <T extends StorageRecord> CacheWeigher<T> fixed(long bytes) {
+        long weight = Math.max(1, bytes);
+        return record -> weight;
+    }
+
+    /**
+     * Weighs by the size of the record's encoded form, falling back to a fixed estimate when encoding fails.
+     */
+    static <T extends StorageRecord> CacheWeigher<T> ofCodec(JsonCodec<T> codec) {
+        if (codec == null) {
+            return fixed(FALLBACK_BYTES);
+        }
+        return record -> {
+            try {
+                return ENTRY_OVERHEAD_BYTES + codec.encode(record).getBytes(StandardCharsets.UTF_8).length;
+            } catch (Exception e) {
+                return FALLBACK_BYTES;
+            }
+        };
+    }
+}
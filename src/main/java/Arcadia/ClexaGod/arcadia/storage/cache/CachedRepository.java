@@ -3,19 +3,40 @@ package Arcadia.ClexaGod.arcadia.storage.cache;
 import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
 import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogService;
+import Arcadia.ClexaGod.arcadia.storage.index.IndexQuery;
+import Arcadia.ClexaGod.arcadia.storage.index.RecordIndex;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalCodecProvider;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalEntry;
 import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
 import Arcadia.ClexaGod.arcadia.storage.queue.AsyncWriteQueue;
+import Arcadia.ClexaGod.arcadia.storage.queue.BatchResult;
+import Arcadia.ClexaGod.arcadia.storage.queue.WriteBatcher;
+import Arcadia.ClexaGod.arcadia.storage.queue.WritePriority;
 import Arcadia.ClexaGod.arcadia.storage.queue.WriteTask;
+import Arcadia.ClexaGod.arcadia.storage.repository.BatchWriteException;
+import Arcadia.ClexaGod.arcadia.storage.repository.StorageFutures;
 import Arcadia.ClexaGod.arcadia.storage.repository.StorageRepository;
+import Arcadia.ClexaGod.arcadia.storage.repository.json.JsonCodec;
 import org.allaymc.api.message.I18n;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
-public final class CachedRepository<T extends StorageRecord> implements StorageRepository<T> {
+public final class CachedRepository<T extends StorageRecord> implements StorageRepository<T>, JournalCodecProvider<T> {
 
     private final StorageRepository<T> delegate;
     private final RecordCache<T> cache;
@@ -23,15 +44,40 @@ public final class CachedRepository<T extends StorageRecord> implements StorageR
     private final LogService logService;
     private final CachePolicy policy;
     private final CacheMetrics metrics;
+    private final WriteBatcher saveBatcher = this::saveBatch;
+    private final WriteBatcher deleteBatcher = this::deleteBatch;
+    private final Map<String, CompletableFuture<Optional<T>>> inFlightLoads = new ConcurrentHashMap<>();
+    private final long flushIntervalNanos;
+    private final NegativeCache negativeCache;
+    private final PendingWrites<T> pendingWrites = new PendingWrites<>();
+    private volatile long lastFlushNanos = System.nanoTime();
 
     public CachedRepository(StorageRepository<T> delegate, RecordCache<T> cache, AsyncWriteQueue queue, LogService logService,
                             CachePolicy policy) {
+        this(delegate, cache, queue, logService, policy, 0);
+    }
+
+    /**
+     * @param flushIntervalSeconds how often the scheduled flush picks this repository; 0 flushes on every tick
+     */
+    public CachedRepository(StorageRepository<T> delegate, RecordCache<T> cache, AsyncWriteQueue queue, LogService logService,
+                            CachePolicy policy, int flushIntervalSeconds) {
+        this(delegate, cache, queue, logService, policy, flushIntervalSeconds, null);
+    }
+
+    /**
+     * @param negativeCache remembers ids the backend reported absent; null disables negative caching
+     */
+    public CachedRepository(StorageRepository<T> delegate, RecordCache<T> cache, AsyncWriteQueue queue, LogService logService,
+                            CachePolicy policy, int flushIntervalSeconds, NegativeCache negativeCache) {
         this.delegate = delegate;
         this.cache = cache;
         this.queue = queue;
         this.logService = logService;
         this.policy = policy;
         this.metrics = new CacheMetrics();
+        this.flushIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(0, flushIntervalSeconds));
+        this.negativeCache = negativeCache;
     }
 
     @Override
@@ -39,44 +85,296 @@ public final class CachedRepository<T extends StorageRecord> implements StorageR
         return delegate.getName();
     }
 
+    @Override
+    public JsonCodec<T> getCodec() {
+        return JournalCodecProvider.codecOf(delegate);
+    }
+
     @Override
     public Optional<T> load(String id) {
         Optional<T> cached = cache.get(id);
         if (cached.isPresent()) {
             metrics.recordHit();
+            refreshAheadIfDue(id);
             return cached;
         }
         metrics.recordMiss();
-        Optional<T> loaded = delegate.load(id);
-        loaded.ifPresent(record -> cache.put(record, false));
-        return loaded;
+        String key = normalizeId(id);
+        if (key == null) {
+            return delegate.load(id);
+        }
+        if (isKnownAbsent(key)) {
+            return Optional.empty();
+        }
+        CompletableFuture<Optional<T>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<T>> existing = inFlightLoads.putIfAbsent(key, pending);
+        if (existing != null) {
+            metrics.recordDeduplicatedLoad();
+            return awaitLoad(existing);
+        }
+        return runLoad(key, pending);
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> loadAsync(String id) {
+        Optional<T> cached = cache.get(id);
+        if (cached.isPresent()) {
+            metrics.recordHit();
+            refreshAheadIfDue(id);
+            return CompletableFuture.completedFuture(cached);
+        }
+        metrics.recordMiss();
+        String key = normalizeId(id);
+        if (key == null) {
+            return CompletableFuture.supplyAsync(() -> delegate.load(id), StorageFutures.io());
+        }
+        if (isKnownAbsent(key)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Optional<T>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<T>> existing = inFlightLoads.putIfAbsent(key, pending);
+        if (existing != null) {
+            metrics.recordDeduplicatedLoad();
+            return existing.copy();
+        }
+        StorageFutures.io().execute(() -> {
+            try {
+                runLoad(key, pending);
+            } catch (RuntimeException ignored) {
+                // Already delivered through the future
+            }
+        });
+        return pending.copy();
+    }
+
+    /**
+     * Serves cache hits directly and forwards the remaining misses to the backend as one {@code loadMany} call. Ids
+     * another caller is already loading join that load instead.
+     */
+    @Override
+    public Map<String, T> loadMany(Collection<String> ids) {
+        Map<String, T> records = new LinkedHashMap<>();
+        if (ids == null) {
+            return records;
+        }
+        Map<String, CompletableFuture<Optional<T>>> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Optional<T>>> joined = new LinkedHashMap<>();
+        for (String id : ids) {
+            String key = normalizeId(id);
+            if (key == null || records.containsKey(key) || owned.containsKey(key) || joined.containsKey(key)) {
+                continue;
+            }
+            Optional<T> cached = cache.get(key);
+            if (cached.isPresent()) {
+                metrics.recordHit();
+                refreshAheadIfDue(key);
+                records.put(key, cached.get());
+                continue;
+            }
+            metrics.recordMiss();
+            if (isKnownAbsent(key)) {
+                continue;
+            }
+            CompletableFuture<Optional<T>> pending = new CompletableFuture<>();
+            CompletableFuture<Optional<T>> existing = inFlightLoads.putIfAbsent(key, pending);
+            if (existing != null) {
+                metrics.recordDeduplicatedLoad();
+                joined.put(key, existing);
+            } else {
+                owned.put(key, pending);
+            }
+        }
+        if (!owned.isEmpty()) {
+            runLoadMany(owned, records);
+        }
+        joined.forEach((key, pending) -> awaitLoad(pending).ifPresent(record -> records.put(key, record)));
+        return records;
+    }
+
+    private void runLoadMany(Map<String, CompletableFuture<Optional<T>>> owned, Map<String, T> records) {
+        long generation = negativeCache != null ? negativeCache.generation() : 0;
+        try {
+            Map<String, T> loaded = delegate.loadMany(owned.keySet());
+            owned.forEach((key, pending) -> {
+                T record = loaded.get(key);
+                if (record != null) {
+                    cache.put(record, false);
+                    records.put(key, record);
+                } else if (negativeCache != null) {
+                    negativeCache.markAbsent(key, generation);
+                }
+                pending.complete(Optional.ofNullable(record));
+            });
+        } catch (RuntimeException e) {
+            owned.values().forEach(pending -> pending.completeExceptionally(e));
+            throw e;
+        } finally {
+            owned.forEach(inFlightLoads::remove);
+        }
+    }
+
+    /**
+     * Serves the cached value and, once it is past the refresh-ahead threshold, reloads it on the virtual thread pool.
+     */
+    private void refreshAheadIfDue(String id) {
+        if (!cache.isRefreshAheadEnabled()) {
+            return;
+        }
+        long version = cache.claimRefresh(id);
+        if (version < 0) {
+            return;
+        }
+        String key = normalizeId(id);
+        try {
+            StorageFutures.io().execute(() -> {
+                T fresh = null;
+                try {
+                    fresh = delegate.load(key).orElse(null);
+                } catch (RuntimeException e) {
+                    logService.warn(LogCategory.CACHE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_CACHE_REFRESH_FAILED, getName(), key, e.getMessage()));
+                } finally {
+                    cache.completeRefresh(key, fresh, version);
+                }
+            });
+            metrics.recordRefresh();
+        } catch (RejectedExecutionException e) {
+            cache.completeRefresh(key, null, version);
+        }
+    }
+
+    /**
+     * Performs the backend read for every caller that missed on this key while it was in flight.
+     */
+    private Optional<T> runLoad(String key, CompletableFuture<Optional<T>> pending) {
+        long generation = negativeCache != null ? negativeCache.generation() : 0;
+        try {
+            Optional<T> loaded = delegate.load(key);
+            if (loaded.isPresent()) {
+                cache.put(loaded.get(), false);
+            } else if (negativeCache != null) {
+                negativeCache.markAbsent(key, generation);
+            }
+            pending.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, pending);
+        }
+    }
+
+    private Optional<T> awaitLoad(CompletableFuture<Optional<T>> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
     }
 
     @Override
     public void save(T record) {
+        save(record, policy.writePriority());
+    }
+
+    public void save(T record, WritePriority priority) {
         if (record == null) {
             return;
         }
-        cache.put(record, true);
+        invalidateAbsent(record.getId());
+        long version = cache.put(record, true);
+        long sequence = pendingWrites.track(record.getId(), record);
         if (policy.flushOnSave()) {
-            boolean flushed = enqueueSaveAndWait(record);
+            boolean flushed = enqueueSaveAndWait(record, priority, sequence);
             if (flushed) {
-                cache.markClean(record.getId());
+                cache.markClean(record.getId(), version);
             } else {
                 logService.warn(LogCategory.CACHE,
                         I18n.get().tr(LangKeys.LOG_STORAGE_CACHE_FLUSH_ON_SAVE_FAILED, getName(), record.getId()));
             }
             return;
         }
-        enqueueSave(record);
+        enqueueSave(record, priority, version, sequence);
+    }
+
+    /**
+     * Caches the record and completes once the queued write has reached the backend, without blocking the caller.
+     * Completes exceptionally when the backend write failed after its retries.
+     */
+    @Override
+    public CompletableFuture<Boolean> saveAsync(T record) {
+        return saveAsync(record, policy.writePriority());
+    }
+
+    public CompletableFuture<Boolean> saveAsync(T record, WritePriority priority) {
+        if (record == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        invalidateAbsent(record.getId());
+        long version = cache.put(record, true);
+        String id = record.getId();
+        String key = buildKey(id);
+        if (key == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        long sequence = pendingWrites.track(id, record);
+        CompletableFuture<Boolean> completion = settleOn(queue.enqueueAsync(saveTask(key, record, priority)), id, sequence);
+        if (!isRejected(completion)) {
+            // Stays dirty until the write lands, so a failed write is picked up again by the next flush.
+            completion.thenAccept(ok -> {
+                if (ok) {
+                    cache.markClean(id, version);
+                }
+            });
+            metrics.recordWriteTasks(1);
+            metrics.recordQueueSize(queue.getQueueSize());
+        }
+        return completion;
     }
 
     @Override
     public void delete(String id) {
         cache.remove(id);
+        markDeleted(id);
         enqueueDelete(id);
     }
 
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String id) {
+        cache.remove(id);
+        markDeleted(id);
+        String key = buildKey(id);
+        if (key == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String pendingId = normalizeId(id);
+        long sequence = pendingWrites.track(pendingId, null);
+        CompletableFuture<Boolean> completion = settleOn(queue.enqueueAsync(deleteTask(key, id)), pendingId, sequence);
+        if (!isRejected(completion)) {
+            metrics.recordWriteTasks(1);
+            metrics.recordQueueSize(queue.getQueueSize());
+        }
+        return completion;
+    }
+
+    @Override
+    public void saveAll(Collection<T> records) {
+        for (T record : records) {
+            save(record);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        for (String id : ids) {
+            delete(id);
+        }
+    }
+
     @Override
     public boolean exists(String id) {
         if (cache.contains(id)) {
@@ -84,7 +382,42 @@ public final class CachedRepository<T extends StorageRecord> implements StorageR
             return true;
         }
         metrics.recordMiss();
-        return delegate.exists(id);
+        String key = normalizeId(id);
+        if (key == null || negativeCache == null) {
+            return delegate.exists(id);
+        }
+        if (isKnownAbsent(key)) {
+            return false;
+        }
+        long generation = negativeCache.generation();
+        boolean exists = delegate.exists(key);
+        if (!exists) {
+            negativeCache.markAbsent(key, generation);
+        }
+        return exists;
+    }
+
+    private boolean isKnownAbsent(String key) {
+        if (negativeCache == null || !negativeCache.isAbsent(key)) {
+            return false;
+        }
+        metrics.recordNegativeHit();
+        return true;
+    }
+
+    private void invalidateAbsent(String id) {
+        String key = normalizeId(id);
+        if (negativeCache != null && key != null) {
+            negativeCache.invalidate(key);
+        }
+    }
+
+    private void markDeleted(String id) {
+        String key = normalizeId(id);
+        if (negativeCache != null && key != null) {
+            // The queued delete may not have reached the backend yet; answer absent until it has.
+            negativeCache.markAbsent(key, negativeCache.generation());
+        }
     }
 
     @Override
@@ -123,22 +456,157 @@ public final class CachedRepository<T extends StorageRecord> implements StorageR
         return new ArrayList<>(merged.values());
     }
 
+    /**
+     * Streams the backend with cached values taking precedence; records only present in the cache follow at the end.
+     * Streamed records are not added to the cache.
+     */
+    @Override
+    public Stream<T> streamAll() {
+        return withCacheOverlay(delegate.streamAll());
+    }
+
+    /**
+     * Bulk variant of {@link #streamAll()}; the backend reads concurrently, cached values still take precedence.
+     */
+    @Override
+    public Stream<T> bulkStream(int parallelism, boolean ordered) {
+        return withCacheOverlay(delegate.bulkStream(parallelism, ordered));
+    }
+
+    private Stream<T> withCacheOverlay(Stream<T> backend) {
+        Map<String, T> overlay = new LinkedHashMap<>();
+        for (RecordCache.CacheSnapshot<T> snapshot : cache.snapshotAll()) {
+            overlay.put(snapshot.id(), snapshot.value());
+        }
+        Stream<T> base = backend
+                .filter(Objects::nonNull)
+                .map(record -> {
+                    T cached = overlay.remove(record.getId());
+                    return cached != null ? cached : record;
+                });
+        // flatMap defers reading the overlay until the backend stream is exhausted
+        return Stream.concat(base, Stream.of(overlay).flatMap(remaining -> remaining.values().stream()));
+    }
+
+    @Override
+    public List<T> loadPage(String afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        TreeMap<String, T> page = new TreeMap<>();
+        for (T record : delegate.loadPage(afterId, limit)) {
+            if (record != null) {
+                page.put(record.getId(), record);
+            }
+        }
+        boolean full = page.size() >= limit;
+        for (RecordCache.CacheSnapshot<T> snapshot : cache.snapshotAll()) {
+            String id = snapshot.id();
+            if (afterId != null && id.compareTo(afterId) <= 0) {
+                continue;
+            }
+            if (page.containsKey(id) || !full || id.compareTo(page.lastKey()) < 0) {
+                page.put(id, snapshot.value());
+            }
+        }
+        while (page.size() > limit) {
+            page.pollLastEntry();
+        }
+        return new ArrayList<>(page.values());
+    }
+
+    /**
+     * Fills the cache with up to {@code limit} backend records without materializing the rest, reading with up to
+     * {@code parallelism} concurrent loads.
+     *
+     * @return records loaded into the cache
+     */
+    public int warmUp(int limit, int parallelism) {
+        if (limit <= 0) {
+            return 0;
+        }
+        int loaded = 0;
+        try (Stream<T> stream = delegate.bulkStream(parallelism, false)) {
+            Iterator<T> iterator = stream.iterator();
+            while (loaded < limit && iterator.hasNext()) {
+                T record = iterator.next();
+                if (record != null) {
+                    cache.put(record, false);
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void registerIndex(RecordIndex<T> index) {
+        delegate.registerIndex(index);
+    }
+
+    /**
+     * Backend index results corrected by the pending writes: saves and deletes that are dirty in the cache or still
+     * in the write queue, which the backend index has not seen yet. Clean cached values match the backend and are
+     * not consulted.
+     */
+    @Override
+    public List<T> findByIndex(IndexQuery<T> query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<PendingWrites.Change<T>> pending = List.copyOf(pendingWrites.changes());
+        // Each pending change can knock one backend match out below, so over-fetch by that many to still fill the page.
+        int fetch = (int) Math.min(Integer.MAX_VALUE, (long) limit + pending.size());
+        Map<String, T> matches = new LinkedHashMap<>();
+        for (T record : delegate.findByIndex(query, fetch)) {
+            if (record != null) {
+                matches.put(record.getId(), record);
+            }
+        }
+        for (PendingWrites.Change<T> change : pending) {
+            if (change.value() != null && query.matches(change.value())) {
+                matches.put(change.id(), change.value());
+            } else {
+                matches.remove(change.id());
+            }
+        }
+        RecordIndex<T> index = query.getIndex();
+        return matches.values().stream()
+                .sorted(Comparator.comparing((T record) -> index.valueOf(record),
+                                Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                        .thenComparing(StorageRecord::getId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Answered by the backend's maintained counter. Unlike the earlier loadAll-based count, records still waiting in
+     * the cache or the write queue are left out until they have been written, and queued deletes still count.
+     */
     @Override
     public long count() {
-        return loadAll().size();
+        return delegate.count();
+    }
+
+    public boolean isFlushDue(long nowNanos) {
+        return nowNanos - lastFlushNanos >= flushIntervalNanos;
     }
 
     public void flush() {
+        lastFlushNanos = System.nanoTime();
         metrics.recordFlush();
         int expired = cache.evictExpired();
         int evicted = cache.evictOverflow();
         metrics.recordEvictedExpired(expired);
         metrics.recordEvictedOverflow(evicted);
+        metrics.recordAdmissions(cache.getAdmitted(), cache.getRejected());
+        metrics.recordResidentBytes(cache.getWeightedBytes(), cache.getMaxBytes());
 
         List<RecordCache.CacheSnapshot<T>> dirty = cache.snapshotDirty();
         int queued = 0;
         for (RecordCache.CacheSnapshot<T> snapshot : dirty) {
-            if (enqueueSave(snapshot.value())) {
+            long sequence = pendingWrites.retrack(snapshot.id(), snapshot.value());
+            if (enqueueSave(snapshot.value(), policy.writePriority(), snapshot.version(), sequence)) {
                 queued++;
             }
         }
@@ -164,36 +632,45 @@ public final class CachedRepository<T extends StorageRecord> implements StorageR
         if (key == null) {
             return;
         }
-        boolean enqueued = queue.enqueue(new WriteTask(key, "delete " + getName() + "/" + id, () -> delegate.delete(id)));
-        if (enqueued) {
+        String pendingId = normalizeId(id);
+        long sequence = pendingWrites.track(pendingId, null);
+        CompletableFuture<Boolean> completion = settleOn(queue.enqueueAsync(deleteTask(key, id)), pendingId, sequence);
+        if (!isRejected(completion)) {
             metrics.recordWriteTasks(1);
             metrics.recordQueueSize(queue.getQueueSize());
         }
     }
 
-    private boolean enqueueSave(T record) {
+    private boolean enqueueSave(T record, WritePriority priority, long version, long sequence) {
         String id = record.getId();
         String key = buildKey(id);
         if (key == null) {
+            pendingWrites.settle(id, sequence);
             return false;
         }
-        boolean enqueued = queue.enqueue(new WriteTask(key, "save " + getName() + "/" + id, () -> delegate.save(record)));
+        boolean enqueued = !isRejected(settleOn(queue.enqueueAsync(saveTask(key, record, priority)), id, sequence));
         if (enqueued) {
-            cache.markClean(id);
+            cache.markClean(id, version);
             metrics.recordWriteTasks(1);
             metrics.recordQueueSize(queue.getQueueSize());
         }
         return enqueued;
     }
 
-    private boolean enqueueSaveAndWait(T record) {
+    private boolean enqueueSaveAndWait(T record, WritePriority priority, long sequence) {
         String id = record.getId();
         String key = buildKey(id);
         if (key == null) {
+            pendingWrites.settle(id, sequence);
             return false;
         }
-        WriteTask task = new WriteTask(key, "save " + getName() + "/" + id, () -> delegate.save(record));
-        boolean result = queue.enqueueAndWait(task, policy.flushTimeout());
+        CompletableFuture<Boolean> completion = settleOn(queue.enqueueAsync(saveTask(key, record, priority)), id, sequence);
+        boolean result;
+        try {
+            result = Boolean.TRUE.equals(completion.get(policy.flushTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            result = false;
+        }
         if (result) {
             metrics.recordWriteTasks(1);
             metrics.recordQueueSize(queue.getQueueSize());
@@ -201,10 +678,104 @@ public final class CachedRepository<T extends StorageRecord> implements StorageR
         return result;
     }
 
+    private WriteTask deleteTask(String key, String id) {
+        JournalEntry journal = queue.getJournal() != null ? JournalEntry.delete(getName(), id) : null;
+        return new WriteTask(key, "delete " + getName() + "/" + id,
+                () -> delegate.delete(id), deleteBatcher, id, policy.writePriority(), journal);
+    }
+
+    /**
+     * Settles the pending change once the write has completed. A save that was rejected or failed while its value is
+     * still dirty in the cache stays pending until the next flush writes it.
+     */
+    private CompletableFuture<Boolean> settleOn(CompletableFuture<Boolean> completion, String id, long sequence) {
+        completion.whenComplete((written, error) -> {
+            if (Boolean.TRUE.equals(written) || !cache.isDirty(id)) {
+                pendingWrites.settle(id, sequence);
+            }
+        });
+        return completion;
+    }
+
+    private static boolean isRejected(CompletableFuture<Boolean> completion) {
+        return completion.isDone() && !completion.isCompletedExceptionally() && !completion.join();
+    }
+
+    private WriteTask saveTask(String key, T record, WritePriority priority) {
+        return new WriteTask(key, "save " + getName() + "/" + record.getId(),
+                () -> delegate.save(record), saveBatcher, record, priority, journalSave(record));
+    }
+
+    private JournalEntry journalSave(T record) {
+        JsonCodec<T> codec = JournalCodecProvider.codecOf(delegate);
+        if (queue.getJournal() == null || codec == null) {
+            return null;
+        }
+        try {
+            return JournalEntry.save(getName(), record.getId(), codec.encode(record));
+        } catch (Exception e) {
+            logService.warn(LogCategory.QUEUE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_ENCODE_FAILED, getName(), record.getId()));
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchResult saveBatch(List<WriteTask> tasks) {
+        List<T> records = new ArrayList<>(tasks.size());
+        for (WriteTask task : tasks) {
+            records.add((T) task.payload());
+        }
+        try {
+            delegate.saveAll(records);
+            return BatchResult.success();
+        } catch (BatchWriteException e) {
+            return batchResult(tasks, e);
+        }
+    }
+
+    private BatchResult deleteBatch(List<WriteTask> tasks) {
+        List<String> ids = new ArrayList<>(tasks.size());
+        for (WriteTask task : tasks) {
+            ids.add((String) task.payload());
+        }
+        try {
+            delegate.deleteAll(ids);
+            return BatchResult.success();
+        } catch (BatchWriteException e) {
+            return batchResult(tasks, e);
+        }
+    }
+
+    private static BatchResult batchResult(List<WriteTask> tasks, BatchWriteException failure) {
+        BatchResult result = BatchResult.success();
+        for (WriteTask task : tasks) {
+            String id = task.payload() instanceof StorageRecord record ? record.getId() : (String) task.payload();
+            result.report(task, failure.getFailures().get(id));
+        }
+        return result;
+    }
+
     public CacheMetrics getMetrics() {
         return metrics;
     }
 
+    public CachePolicy getPolicy() {
+        return policy;
+    }
+
+    RecordCache<T> getCache() {
+        return cache;
+    }
+
+    private String normalizeId(String id) {
+        if (id == null) {
+            return null;
+        }
+        String trimmed = id.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
     private String buildKey(String id) {
         if (id == null || id.isBlank()) {
             return null;
@@ -0,0 +1,96 @@
+package Arcadia.ClexaGod.arcadia.storage.cache;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bucketed timing wheel for access-based TTLs. Items are filed by deadline tick and only looked at once their
+ * bucket is due; the handler re-checks each item and either drops it or hands back a new deadline. The wheel spans
+ * more than one TTL, so a single level is enough when every deadline is at most one TTL ahead.
+ */
+final class ExpirationWheel<E> {
+
+    private static final int BUCKETS = 256;
+
+    private final ConcurrentLinkedQueue<E>[] buckets;
+    private final long tickMillis;
+    private final AtomicInteger scheduled = new AtomicInteger();
+    // Only one thread advances the wheel; others skip the slice instead of waiting.
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private volatile long processedTick;
+
+    @SuppressWarnings("unchecked")
+    ExpirationWheel(long ttlMillis, long now) {
+        this.buckets = new ConcurrentLinkedQueue[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        // BUCKETS - 2 ticks per TTL leaves one spare bucket between the newest deadline and the cursor.
+        this.tickMillis = Math.max(1, (ttlMillis + BUCKETS - 3) / (BUCKETS - 2));
+        this.processedTick = now / tickMillis - 1;
+    }
+
+    void schedule(E item, long deadline) {
+        long tick = Math.max(deadline / tickMillis, processedTick + 1);
+        buckets[(int) (tick & (BUCKETS - 1))].add(item);
+        scheduled.incrementAndGet();
+    }
+
+    int size() {
+        return scheduled.get();
+    }
+
+    void clear() {
+        for (ConcurrentLinkedQueue<E> bucket : buckets) {
+            bucket.clear();
+        }
+        scheduled.set(0);
+    }
+
+    /**
+     * Visits due items up to the given budget. The handler returns a new deadline to keep an item, or a negative
+     * value to drop it. Returns the number of items visited; a bucket left unfinished is resumed on the next call.
+     */
+    int advance(long now, int budget, Handler<E> handler) {
+        if (!advanceLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long targetTick = now / tickMillis;
+            long tick = processedTick;
+            // After a long idle gap one full turn already covers every bucket.
+            if (targetTick - tick > BUCKETS) {
+                tick = targetTick - BUCKETS;
+            }
+            int visited = 0;
+            while (tick < targetTick) {
+                long current = tick + 1;
+                ConcurrentLinkedQueue<E> bucket = buckets[(int) (current & (BUCKETS - 1))];
+                E item;
+                while (visited < budget && (item = bucket.poll()) != null) {
+                    scheduled.decrementAndGet();
+                    visited++;
+                    long deadline = handler.onDue(item, now);
+                    if (deadline >= 0) {
+                        // Never refile into the bucket being drained, or the loop would see the item again.
+                        schedule(item, Math.max(deadline, (current + 1) * tickMillis));
+                    }
+                }
+                if (visited >= budget && !bucket.isEmpty()) {
+                    break;
+                }
+                tick = current;
+                processedTick = tick;
+            }
+            return visited;
+        } finally {
+            advanceLock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    interface Handler<E> {
+        long onDue(E item, long now);
+    }
+}
@@ -0,0 +1,72 @@
+package Arcadia.ClexaGod.arcadia.storage.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived record of ids the backend reported as absent. Bounded; when full, expired ids go first and then
+ * arbitrary ones, which only costs a backend probe.
+ */
+public final class NegativeCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Long> absentUntil = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a lookup that started before a save cannot record a stale absence.
+    private final AtomicLong generation = new AtomicLong();
+
+    public NegativeCache(int ttlSeconds, int maxEntries) {
+        this.ttlMillis = Math.max(1, ttlSeconds) * 1000L;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public boolean isAbsent(String id) {
+        Long until = absentUntil.get(id);
+        if (until == null) {
+            return false;
+        }
+        if (until <= System.currentTimeMillis()) {
+            absentUntil.remove(id, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records an absence observed by a lookup that started at the given generation.
+     */
+    public void markAbsent(String id, long observedGeneration) {
+        if (generation.get() != observedGeneration) {
+            return;
+        }
+        if (absentUntil.size() >= maxEntries) {
+            trim();
+        }
+        absentUntil.put(id, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        absentUntil.remove(id);
+    }
+
+    public int size() {
+        return absentUntil.size();
+    }
+
+    private void trim() {
+        long now = System.currentTimeMillis();
+        absentUntil.values().removeIf(until -> until <= now);
+        Iterator<Map.Entry<String, Long>> iterator = absentUntil.entrySet().iterator();
+        while (absentUntil.size() >= maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
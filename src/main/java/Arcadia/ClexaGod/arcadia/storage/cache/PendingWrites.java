@@ -0,0 +1,64 @@
+package Arcadia.ClexaGod.arcadia.storage.cache;
+
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest change per id that the backend may not have applied yet: tracked when the cache takes a write and settled
+ * when the queued write completes. Index lookups correct backend results with these changes alone, instead of
+ * scanning the whole cache. A delete is a change without a value.
+ */
+final class PendingWrites<T extends StorageRecord> {
+
+    record Change<T>(String id, T value, long sequence) {
+    }
+
+    private final ConcurrentHashMap<String, Change<T>> changes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @return the sequence the matching {@link #settle} call has to present
+     */
+    long track(String id, T value) {
+        long next = sequence.incrementAndGet();
+        changes.put(id, new Change<>(id, value, next));
+        return next;
+    }
+
+    /**
+     * Re-tracks a cached value that is written again, keeping a newer change if one was tracked meanwhile.
+     *
+     * @return the sequence to settle with, or -1 when a newer change owns the id
+     */
+    long retrack(String id, T value) {
+        long[] result = new long[1];
+        changes.compute(id, (ignored, current) -> {
+            if (current == null) {
+                current = new Change<>(id, value, sequence.incrementAndGet());
+            }
+            result[0] = current.value() == value ? current.sequence() : -1;
+            return current;
+        });
+        return result[0];
+    }
+
+    /**
+     * Drops the change once its write has completed, unless a newer change replaced it.
+     */
+    void settle(String id, long sequence) {
+        if (sequence > 0) {
+            changes.computeIfPresent(id, (ignored, current) -> current.sequence() == sequence ? null : current);
+        }
+    }
+
+    Collection<Change<T>> changes() {
+        return changes.values();
+    }
+
+    int size() {
+        return changes.size();
+    }
+}
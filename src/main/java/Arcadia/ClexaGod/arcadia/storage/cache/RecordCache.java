@@ -3,81 +3,213 @@ package Arcadia.ClexaGod.arcadia.storage.cache;
 import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Concurrent record cache. Reads are lock-free; per-entry updates go through the map's bin-level atomics. Overflow
+ * eviction follows W-TinyLFU: new entries enter a small LRU window, and leave it only if a frequency sketch rates
+ * them above the main region's victim, so a one-off scan cannot push out the hot set. Reads are recorded into lossy
+ * striped buffers and replayed under the policy lock, keeping the read path free of locks. Dirty entries are tracked in a
+ * separate index with a write version, so flushing costs O(dirty) and a stale flush never marks a newer write clean.
+ * TTL expiry is driven by an {@link ExpirationWheel} and runs in bounded slices. With a byte budget, entries are
+ * weighed on write and eviction also keeps the estimated resident bytes under the budget.
+ */
 public final class RecordCache<T extends StorageRecord> {
 
+    private static final int EXPIRE_SLICE = 4096;
+    private static final int READ_BUFFER_SIZE = 64;
+    private static final int READ_STRIPES = Math.min(16,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+    // Counters sit 16 longs apart so stripes do not share a cache line.
+    private static final int COUNTER_STRIDE = 16;
+    private static final int REGION_NONE = 0;
+    private static final int REGION_WINDOW = 1;
+    private static final int REGION_PROBATION = 2;
+    private static final int REGION_PROTECTED = 3;
+
     private final int maxEntries;
     private final long ttlMillis;
-    private final LinkedHashMap<String, CacheEntry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final CacheWeigher<T> weigher;
+    private final CacheEvictionPolicy eviction;
+    private volatile long maxBytes;
+    private final long refreshAfterMillis;
+    private final AtomicLong weightedBytes = new AtomicLong();
+    private final ConcurrentHashMap<String, CacheEntry<T>> entries = new ConcurrentHashMap<>();
+    // Only mutated inside the entries bin lock of the same key, so it never disagrees with the entry's dirty flag.
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    private final ExpirationWheel<CacheEntry<T>> expirations;
+    // Guards the access lists and the sketch; only taken on writes, evictions and buffer drains.
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessList<T> window = new AccessList<>();
+    private final AccessList<T> probation = new AccessList<>();
+    private final AccessList<T> protectedRegion = new AccessList<>();
+    private final int windowMax;
+    private final int protectedMax;
+    private final AtomicReferenceArray<CacheEntry<T>> readBuffer =
+            new AtomicReferenceArray<>(READ_STRIPES * READ_BUFFER_SIZE);
+    private final AtomicLongArray readCounters = new AtomicLongArray(READ_STRIPES * COUNTER_STRIDE);
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
 
     public RecordCache(int maxEntries, int ttlSeconds) {
+        this(maxEntries, ttlSeconds, 0, null, CacheEvictionPolicy.TINY_LFU);
+    }
+
+    /**
+     * @param maxBytes byte budget for resident records; 0 means no budget
+     * @param weigher  weighs records on write; null disables weighing and with it the byte budget
+     */
+    public RecordCache(int maxEntries, int ttlSeconds, long maxBytes, CacheWeigher<T> weigher,
+                       CacheEvictionPolicy eviction) {
+        this(maxEntries, ttlSeconds, maxBytes, weigher, eviction, 0);
+    }
+
+    /**
+     * @param refreshAheadRatio fraction of the TTL after which a clean entry's value is due for a background reload,
+     *                          measured from when it was loaded or written; 0 disables refresh-ahead
+     */
+    public RecordCache(int maxEntries, int ttlSeconds, long maxBytes, CacheWeigher<T> weigher,
+                       CacheEvictionPolicy eviction, double refreshAheadRatio) {
         this.maxEntries = Math.max(1, maxEntries);
         this.ttlMillis = Math.max(1, ttlSeconds) * 1000L;
+        this.weigher = weigher;
+        this.maxBytes = weigher != null ? Math.max(0, maxBytes) : 0;
+        this.eviction = eviction != null ? eviction : CacheEvictionPolicy.TINY_LFU;
+        this.expirations = new ExpirationWheel<>(ttlMillis, System.currentTimeMillis());
+        this.sketch = new FrequencySketch(this.maxEntries);
+        this.windowMax = Math.max(1, this.maxEntries / 100);
+        this.protectedMax = Math.max(1, (this.maxEntries - windowMax) * 4 / 5);
+        this.refreshAfterMillis = refreshAheadRatio > 0 && refreshAheadRatio < 1
+                ? Math.max(1, (long) (ttlMillis * refreshAheadRatio))
+                : 0;
     }
 
     public Optional<T> get(String id) {
-        String key = normalizeId(id);
-        if (key == null) {
-            return Optional.empty();
+        CacheEntry<T> entry = access(id);
+        return entry != null ? Optional.of(entry.value) : Optional.empty();
+    }
+
+    public boolean contains(String id) {
+        return access(id) != null;
+    }
+
+    public boolean isRefreshAheadEnabled() {
+        return refreshAfterMillis > 0;
+    }
+
+    /**
+     * Claims a background reload for a clean entry whose value is older than the refresh-ahead threshold. Returns
+     * the entry's write version to hand to {@link #completeRefresh}, or -1 when no refresh is due or one is running.
+     */
+    public long claimRefresh(String id) {
+        if (refreshAfterMillis <= 0) {
+            return -1;
         }
+        String key = normalizeId(id);
+        CacheEntry<T> entry = key != null ? entries.get(key) : null;
         long now = System.currentTimeMillis();
-        synchronized (entries) {
-            CacheEntry<T> entry = entries.get(key);
-            if (entry == null) {
-                return Optional.empty();
-            }
-            if (isExpired(entry, now) && !entry.dirty) {
-                entries.remove(key);
-                return Optional.empty();
-            }
-            entry.lastAccess = now;
-            return Optional.of(entry.value);
+        if (entry == null || entry.dirty || entry.refreshing || now - entry.loadedAt < refreshAfterMillis) {
+            return -1;
         }
+        long[] claimed = {-1};
+        entries.computeIfPresent(key, (ignored, current) -> {
+            if (current == entry && !current.dirty && !current.refreshing) {
+                current.refreshing = true;
+                claimed[0] = current.version;
+            }
+            return current;
+        });
+        return claimed[0];
     }
 
-    public boolean contains(String id) {
+    /**
+     * Installs a reloaded value only if the entry is still clean and nobody wrote it since the claim, so a refresh
+     * never replaces a pending or newer write. Passing null just releases the claim.
+     */
+    public boolean completeRefresh(String id, T record, long version) {
         String key = normalizeId(id);
         if (key == null) {
             return false;
         }
-        long now = System.currentTimeMillis();
-        synchronized (entries) {
-            CacheEntry<T> entry = entries.get(key);
-            if (entry == null) {
-                return false;
+        long weight = record != null ? weigh(record) : 0;
+        boolean[] applied = new boolean[1];
+        entries.computeIfPresent(key, (ignored, entry) -> {
+            entry.refreshing = false;
+            if (record != null && !entry.dirty && entry.version == version) {
+                entry.value = record;
+                entry.loadedAt = System.currentTimeMillis();
+                weightedBytes.addAndGet(weight - entry.weight);
+                entry.weight = weight;
+                applied[0] = true;
             }
-            if (isExpired(entry, now) && !entry.dirty) {
-                entries.remove(key);
-                return false;
-            }
-            entry.lastAccess = now;
-            return true;
-        }
+            return entry;
+        });
+        return applied[0];
     }
 
-    public void put(T record, boolean dirty) {
+    /**
+     * Stores a record and returns its write version; pass the version to {@link #markClean(String, long)} once that
+     * write reached storage. A clean put never replaces a dirty value, since it would be older than the pending write.
+     */
+    public long put(T record, boolean dirty) {
         if (record == null) {
-            return;
+            return 0;
         }
         String key = normalizeId(record.getId());
         if (key == null) {
-            return;
+            return 0;
         }
         long now = System.currentTimeMillis();
-        synchronized (entries) {
-            CacheEntry<T> existing = entries.get(key);
-            if (existing == null) {
-                entries.put(key, new CacheEntry<>(record, dirty, now));
+        // Weighed outside the bin lock; encoding a large record can take a while.
+        long weight = weigh(record);
+        boolean[] created = new boolean[1];
+        // Read under the bin lock; a concurrent put may bump the version as soon as compute returns.
+        long[] version = new long[1];
+        CacheEntry<T> stored = entries.compute(key, (ignored, existing) -> {
+            CacheEntry<T> entry = existing;
+            if (entry == null) {
+                entry = new CacheEntry<>(key, record, now);
+                entry.loadedAt = now;
+                entry.weight = weight;
+                weightedBytes.addAndGet(weight);
+                created[0] = true;
+            } else if (dirty || !entry.dirty) {
+                entry.value = record;
+                entry.lastAccess = now;
+                entry.loadedAt = now;
+                weightedBytes.addAndGet(weight - entry.weight);
+                entry.weight = weight;
             } else {
-                existing.value = record;
-                existing.lastAccess = now;
-                existing.dirty = existing.dirty || dirty;
+                entry.lastAccess = now;
+                version[0] = entry.version;
+                return entry;
+            }
+            if (dirty) {
+                entry.dirty = true;
+                // Written after value so a reader that sees the new version also sees the new value.
+                entry.version++;
+                dirtyKeys.add(key);
             }
+            version[0] = entry.version;
+            return entry;
+        });
+        if (created[0]) {
+            expirations.schedule(stored, now + ttlMillis);
+            onCreated(stored);
+        } else {
+            recordRead(stored);
         }
+        return version[0];
     }
 
     public void remove(String id) {
@@ -85,102 +217,337 @@ public final class RecordCache<T extends StorageRecord> {
         if (key == null) {
             return;
         }
-        synchronized (entries) {
-            entries.remove(key);
+        @SuppressWarnings("unchecked")
+        CacheEntry<T>[] removed = new CacheEntry[1];
+        entries.computeIfPresent(key, (ignored, entry) -> {
+            dirtyKeys.remove(key);
+            weightedBytes.addAndGet(-entry.weight);
+            removed[0] = entry;
+            return null;
+        });
+        if (removed[0] != null) {
+            unlink(removed[0]);
         }
     }
 
-    public void markClean(String id) {
+    /**
+     * Clears the dirty flag only if no write happened after the given version.
+     */
+    public boolean markClean(String id, long version) {
         String key = normalizeId(id);
         if (key == null) {
-            return;
+            return false;
         }
-        synchronized (entries) {
-            CacheEntry<T> entry = entries.get(key);
-            if (entry != null) {
+        boolean[] cleaned = new boolean[1];
+        entries.computeIfPresent(key, (ignored, entry) -> {
+            if (entry.dirty && entry.version == version) {
                 entry.dirty = false;
+                dirtyKeys.remove(key);
+                cleaned[0] = true;
             }
-        }
+            return entry;
+        });
+        return cleaned[0];
     }
 
     public List<CacheSnapshot<T>> snapshotDirty() {
-        synchronized (entries) {
-            List<CacheSnapshot<T>> dirty = new ArrayList<>();
-            for (Map.Entry<String, CacheEntry<T>> entry : entries.entrySet()) {
-                CacheEntry<T> value = entry.getValue();
-                if (value.dirty) {
-                    dirty.add(new CacheSnapshot<>(entry.getKey(), value.value));
-                }
+        List<CacheSnapshot<T>> dirty = new ArrayList<>(dirtyKeys.size());
+        for (String key : dirtyKeys) {
+            CacheEntry<T> entry = entries.get(key);
+            if (entry == null || !entry.dirty) {
+                continue;
             }
-            return dirty;
+            long version = entry.version;
+            dirty.add(new CacheSnapshot<>(key, entry.value, version));
         }
+        return dirty;
     }
 
     public List<CacheSnapshot<T>> snapshotAll() {
-        synchronized (entries) {
-            List<CacheSnapshot<T>> all = new ArrayList<>(entries.size());
-            for (Map.Entry<String, CacheEntry<T>> entry : entries.entrySet()) {
-                all.add(new CacheSnapshot<>(entry.getKey(), entry.getValue().value));
-            }
-            return all;
+        List<CacheSnapshot<T>> all = new ArrayList<>(entries.size());
+        for (Map.Entry<String, CacheEntry<T>> entry : entries.entrySet()) {
+            CacheEntry<T> value = entry.getValue();
+            long version = value.version;
+            all.add(new CacheSnapshot<>(entry.getKey(), value.value, version));
         }
+        return all;
+    }
+
+    public boolean isDirty(String id) {
+        String key = normalizeId(id);
+        return key != null && dirtyKeys.contains(key);
     }
 
     public int countDirty() {
-        int count = 0;
-        synchronized (entries) {
-            for (CacheEntry<T> entry : entries.values()) {
-                if (entry.dirty) {
-                    count++;
+        return dirtyKeys.size();
+    }
+
+    /**
+     * Expires one slice of due entries; whatever is left over is picked up by the next call.
+     */
+    public int evictExpired() {
+        int[] removed = new int[1];
+        expirations.advance(System.currentTimeMillis(), EXPIRE_SLICE, (entry, now) -> {
+            if (entries.get(entry.key) != entry) {
+                // Removed or replaced since it was filed; the replacement has its own slot.
+                return -1;
+            }
+            if (entry.dirty) {
+                return now + ttlMillis;
+            }
+            if (removeIfExpired(entry.key, entry, now)) {
+                removed[0]++;
+                return -1;
+            }
+            return entry.lastAccess + ttlMillis;
+        });
+        return removed[0];
+    }
+
+    public int evictOverflow() {
+        if (!isOverCapacity() && window.size <= windowMax) {
+            return 0;
+        }
+        policyLock.lock();
+        try {
+            drainReads();
+            int removed = 0;
+            while (window.size > windowMax) {
+                CacheEntry<T> candidate = window.head;
+                window.remove(candidate);
+                candidate.region = REGION_NONE;
+                if (entries.get(candidate.key) != candidate) {
+                    continue;
+                }
+                if (isOverCapacity() && !candidate.dirty) {
+                    CacheEntry<T> victim = findVictim();
+                    if (victim != null && eviction == CacheEvictionPolicy.TINY_LFU
+                            && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                        // The newcomer is no more popular than what it would displace; drop it instead.
+                        if (removeClean(candidate.key, candidate, false, 0)) {
+                            rejected.increment();
+                            removed++;
+                            continue;
+                        }
+                    } else if (victim != null && removeClean(victim.key, victim, false, 0)) {
+                        admitted.increment();
+                        removed++;
+                    }
+                }
+                probation.addTail(candidate);
+                candidate.region = REGION_PROBATION;
+            }
+            int attempts = probation.size + protectedRegion.size + window.size;
+            while (isOverCapacity() && attempts-- > 0) {
+                CacheEntry<T> victim = findVictim();
+                if (victim == null) {
+                    // Main region is empty or all dirty; a byte budget can still be exceeded by the window alone.
+                    victim = firstClean(window);
+                }
+                if (victim == null) {
+                    break;
+                }
+                if (removeClean(victim.key, victim, false, 0)) {
+                    removed++;
+                } else if (entries.get(victim.key) != victim) {
+                    unlink(victim);
                 }
             }
+            return removed;
+        } finally {
+            policyLock.unlock();
         }
-        return count;
     }
 
-    public int evictExpired() {
+    public long getWeightedBytes() {
+        return weightedBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Moves the byte budget, e.g. when a shared ceiling is rebalanced. Takes effect on the next eviction pass.
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (weigher != null) {
+            this.maxBytes = Math.max(0, maxBytes);
+        }
+    }
+
+    public CacheEvictionPolicy getEviction() {
+        return eviction;
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int getTtlSeconds() {
+        return (int) (ttlMillis / 1000L);
+    }
+
+    private CacheEntry<T> access(String id) {
+        String key = normalizeId(id);
+        if (key == null) {
+            return null;
+        }
+        CacheEntry<T> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
         long now = System.currentTimeMillis();
-        int removed = 0;
-        synchronized (entries) {
-            var iterator = entries.entrySet().iterator();
-            while (iterator.hasNext()) {
-                CacheEntry<T> entry = iterator.next().getValue();
-                if (!entry.dirty && isExpired(entry, now)) {
-                    iterator.remove();
-                    removed++;
+        if (removeIfExpired(key, entry, now)) {
+            return null;
+        }
+        entry.touch(now);
+        recordRead(entry);
+        return entry;
+    }
+
+    private boolean isOverCapacity() {
+        return entries.size() > maxEntries || (maxBytes > 0 && weightedBytes.get() > maxBytes);
+    }
+
+    private long weigh(T record) {
+        if (weigher == null) {
+            return 0;
+        }
+        return Math.max(0, weigher.weigh(record));
+    }
+
+    private void onCreated(CacheEntry<T> entry) {
+        policyLock.lock();
+        try {
+            // A remove that won the race already unlinked nothing; skip entries no longer in the map.
+            if (entry.region != REGION_NONE || entries.get(entry.key) != entry) {
+                return;
+            }
+            sketch.increment(entry.key);
+            window.addTail(entry);
+            entry.region = REGION_WINDOW;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void recordRead(CacheEntry<T> entry) {
+        int stripe = (int) (mix(Thread.currentThread().threadId()) & (READ_STRIPES - 1));
+        long count = readCounters.getAndIncrement(stripe * COUNTER_STRIDE);
+        int slot = (int) (count & (READ_BUFFER_SIZE - 1));
+        // Lossy: a slot not drained yet is simply overwritten, the sketch only needs a sample.
+        readBuffer.lazySet(stripe * READ_BUFFER_SIZE + slot, entry);
+        if (slot == READ_BUFFER_SIZE - 1 && policyLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void drainReads() {
+        for (int i = 0; i < readBuffer.length(); i++) {
+            CacheEntry<T> entry = readBuffer.getAndSet(i, null);
+            if (entry != null) {
+                onAccess(entry);
+            }
+        }
+    }
+
+    private void onAccess(CacheEntry<T> entry) {
+        sketch.increment(entry.key);
+        switch (entry.region) {
+            case REGION_WINDOW -> window.moveToTail(entry);
+            case REGION_PROBATION -> {
+                probation.remove(entry);
+                protectedRegion.addTail(entry);
+                entry.region = REGION_PROTECTED;
+                while (protectedRegion.size > protectedMax) {
+                    CacheEntry<T> demoted = protectedRegion.head;
+                    protectedRegion.remove(demoted);
+                    probation.addTail(demoted);
+                    demoted.region = REGION_PROBATION;
                 }
             }
+            case REGION_PROTECTED -> protectedRegion.moveToTail(entry);
+            default -> {
+                // Removed or not admitted yet
+            }
         }
-        return removed;
     }
 
-    public int evictOverflow() {
-        int removed = 0;
-        synchronized (entries) {
-            if (entries.size() <= maxEntries) {
-                return 0;
-            }
-            var iterator = entries.entrySet().iterator();
-            while (entries.size() > maxEntries && iterator.hasNext()) {
-                CacheEntry<T> entry = iterator.next().getValue();
-                if (entry.dirty) {
-                    continue;
+    private CacheEntry<T> findVictim() {
+        CacheEntry<T> victim = firstClean(probation);
+        return victim != null ? victim : firstClean(protectedRegion);
+    }
+
+    private CacheEntry<T> firstClean(AccessList<T> list) {
+        for (CacheEntry<T> entry = list.head; entry != null; entry = entry.next) {
+            if (!entry.dirty) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void unlink(CacheEntry<T> entry) {
+        policyLock.lock();
+        try {
+            switch (entry.region) {
+                case REGION_WINDOW -> window.remove(entry);
+                case REGION_PROBATION -> probation.remove(entry);
+                case REGION_PROTECTED -> protectedRegion.remove(entry);
+                default -> {
+                    return;
                 }
-                iterator.remove();
-                removed++;
             }
+            entry.region = REGION_NONE;
+        } finally {
+            policyLock.unlock();
         }
-        return removed;
     }
 
-    public int size() {
-        synchronized (entries) {
-            return entries.size();
+    private static long mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private boolean removeIfExpired(String key, CacheEntry<T> entry, long now) {
+        if (entry.dirty || !isExpired(entry, now)) {
+            return false;
         }
+        return removeClean(key, entry, true, now);
     }
 
-    public int getMaxEntries() {
-        return maxEntries;
+    private boolean removeClean(String key, CacheEntry<T> entry, boolean expiredOnly, long now) {
+        // Re-checked inside the bin lock so a concurrent put or dirty write keeps the entry.
+        boolean[] removed = new boolean[1];
+        entries.computeIfPresent(key, (ignored, current) -> {
+            if (current == entry && !current.dirty && (!expiredOnly || isExpired(current, now))) {
+                weightedBytes.addAndGet(-current.weight);
+                removed[0] = true;
+                return null;
+            }
+            return current;
+        });
+        if (removed[0]) {
+            unlink(entry);
+        }
+        return removed[0];
     }
 
     private boolean isExpired(CacheEntry<T> entry, long now) {
@@ -196,17 +563,78 @@ public final class RecordCache<T extends StorageRecord> {
     }
 
     private static final class CacheEntry<T> {
-        private T value;
-        private boolean dirty;
-        private long lastAccess;
+        private final String key;
+        private volatile T value;
+        private volatile boolean dirty;
+        private volatile long version;
+        private volatile long lastAccess;
+        private volatile long loadedAt;
+        private volatile boolean refreshing;
+        // Guarded by the entries bin lock.
+        private long weight;
+        // Policy state, guarded by policyLock.
+        private int region;
+        private CacheEntry<T> prev;
+        private CacheEntry<T> next;
 
-        private CacheEntry(T value, boolean dirty, long lastAccess) {
+        private CacheEntry(String key, T value, long lastAccess) {
+            this.key = key;
             this.value = value;
-            this.dirty = dirty;
             this.lastAccess = lastAccess;
         }
+
+        private void touch(long now) {
+            // Skip redundant volatile writes so hot readers on different cores do not bounce the cache line.
+            if (lastAccess != now) {
+                lastAccess = now;
+            }
+        }
+    }
+
+    /**
+     * Intrusive LRU list; head is the least recently used entry.
+     */
+    private static final class AccessList<T> {
+        private CacheEntry<T> head;
+        private CacheEntry<T> tail;
+        private int size;
+
+        private void addTail(CacheEntry<T> entry) {
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+            size++;
+        }
+
+        private void remove(CacheEntry<T> entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            size--;
+        }
+
+        private void moveToTail(CacheEntry<T> entry) {
+            if (tail != entry) {
+                remove(entry);
+                addTail(entry);
+            }
+        }
     }
 
-    public record CacheSnapshot<T>(String id, T value) {
+    public record CacheSnapshot<T>(String id, T value, long version) {
     }
 }
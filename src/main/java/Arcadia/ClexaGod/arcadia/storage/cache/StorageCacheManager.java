@@ -3,21 +3,34 @@ package Arcadia.ClexaGod.arcadia.storage.cache;
 import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
 import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogService;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalCodecProvider;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalEntry;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalOperation;
+import Arcadia.ClexaGod.arcadia.storage.journal.PendingEntry;
+import Arcadia.ClexaGod.arcadia.storage.journal.WriteJournal;
 import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
 import Arcadia.ClexaGod.arcadia.storage.queue.AsyncWriteQueue;
 import Arcadia.ClexaGod.arcadia.storage.repository.StorageRepository;
+import Arcadia.ClexaGod.arcadia.storage.repository.json.JsonCodec;
 import org.allaymc.api.message.I18n;
 import org.allaymc.api.scheduler.Scheduler;
 import org.allaymc.api.scheduler.TaskCreator;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class StorageCacheManager {
 
+    private static final double MIN_SHARE_SCORE = 0.1;
+    private static final double SHARE_EWMA_ALPHA = 0.2;
+    private static final double MISS_WEIGHT = 2.0;
+
     private final CacheConfig config;
     private final LogService logService;
     private final AsyncWriteQueue writeQueue;
@@ -26,6 +39,8 @@ public final class StorageCacheManager {
     private final List<CachedRepository<?>> repositories = new CopyOnWriteArrayList<>();
     private volatile boolean started;
     private final AtomicBoolean warmupScheduled = new AtomicBoolean(false);
+    // Smoothed traffic per cache from previous rebalance passes; only touched from the flush tick.
+    private final Map<CachedRepository<?>, ShareState> shareStates = new IdentityHashMap<>();
 
     public StorageCacheManager(CacheConfig config, LogService logService, AsyncWriteQueue writeQueue,
                                Scheduler scheduler, TaskCreator taskCreator) {
@@ -49,8 +64,8 @@ public final class StorageCacheManager {
             return;
         }
         started = true;
-        int flushTicks = Math.max(1, config.getFlushIntervalSeconds()) * 20;
-        scheduler.scheduleRepeating(taskCreator, this::flushAll, flushTicks, true);
+        // Ticks every second; each repository flushes on its own interval.
+        scheduler.scheduleRepeating(taskCreator, this::flushDue, 20, true);
         logService.info(LogCategory.CACHE, I18n.get().tr(
                 LangKeys.LOG_STORAGE_CACHE_ENABLED,
                 config.getTtlSeconds(), config.getMaxEntries(), config.getFlushIntervalSeconds()
@@ -71,24 +86,84 @@ public final class StorageCacheManager {
 
     public <T extends StorageRecord> StorageRepository<T> wrap(StorageRepository<T> repository) {
         if (!config.isEnabled()) {
-            return repository;
+            return replayJournal(repository);
         }
         CachePolicy policy = config.resolvePolicy(repository.getName());
         return wrap(repository, policy);
     }
 
     public <T extends StorageRecord> StorageRepository<T> wrap(StorageRepository<T> repository, CachePolicy policy) {
+        return wrap(repository, policy, null);
+    }
+
+    /**
+     * @param weigher weighs records against the policy's byte budget; null uses the encoded size from the repository codec
+     */
+    public <T extends StorageRecord> StorageRepository<T> wrap(StorageRepository<T> repository, CachePolicy policy,
+                                                               CacheWeigher<T> weigher) {
         if (!config.isEnabled()) {
-            return repository;
+            return replayJournal(repository);
         }
         CachePolicy effective = policy != null ? policy : CachePolicy.defaultPolicy();
         if (!effective.enabled()) {
-            return repository;
+            return replayJournal(repository);
+        }
+        CacheWeigher<T> effectiveWeigher = null;
+        if (effective.maxBytes() > 0 || config.getMemoryCeilingBytes() > 0) {
+            effectiveWeigher = weigher != null ? weigher : CacheWeigher.ofCodec(JournalCodecProvider.codecOf(repository));
         }
-        RecordCache<T> cache = new RecordCache<>(config.getMaxEntries(), config.getTtlSeconds());
-        CachedRepository<T> cached = new CachedRepository<>(repository, cache, writeQueue, logService, effective);
+        RecordCache<T> cache = new RecordCache<>(effective.resolveMaxEntries(config), effective.resolveTtlSeconds(config),
+                effective.maxBytes(), effectiveWeigher, effective.eviction(), effective.refreshAhead());
+        NegativeCache negativeCache = config.isNegativeEnabled()
+                ? new NegativeCache(config.getNegativeTtlSeconds(), config.getNegativeMaxEntries())
+                : null;
+        CachedRepository<T> cached = new CachedRepository<>(repository, cache, writeQueue, logService, effective,
+                effective.resolveFlushIntervalSeconds(config), negativeCache);
         repositories.add(cached);
-        return cached;
+        return replayJournal(cached);
+    }
+
+    private <T extends StorageRecord> StorageRepository<T> replayJournal(StorageRepository<T> repository) {
+        WriteJournal journal = writeQueue.getJournal();
+        if (journal == null) {
+            return repository;
+        }
+        List<PendingEntry> pending = journal.takePending(repository.getName());
+        if (pending.isEmpty()) {
+            return repository;
+        }
+        JsonCodec<T> codec = JournalCodecProvider.codecOf(repository);
+        if (codec == null) {
+            // Entries stay in the journal until a repository with a codec registers under this name
+            logService.warn(LogCategory.QUEUE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_REPLAY_SKIPPED, repository.getName(), pending.size()));
+            return repository;
+        }
+        int replayed = 0;
+        for (PendingEntry entry : pending) {
+            JournalEntry journalEntry = entry.entry();
+            CompletableFuture<Boolean> write;
+            try {
+                write = journalEntry.operation() == JournalOperation.DELETE
+                        ? repository.deleteAsync(journalEntry.id())
+                        : repository.saveAsync(codec.decode(journalEntry.data()));
+            } catch (Exception e) {
+                write = CompletableFuture.failedFuture(e);
+            }
+            // The entry stays live until the replayed write has actually reached the backend.
+            write.whenComplete((written, error) -> {
+                if (error == null && Boolean.TRUE.equals(written)) {
+                    journal.ack(entry.sequence());
+                    return;
+                }
+                logService.error(LogCategory.QUEUE, I18n.get().tr(
+                        LangKeys.LOG_STORAGE_JOURNAL_REPLAY_FAILED, repository.getName(), journalEntry.id()), error);
+            });
+            replayed++;
+        }
+        logService.info(LogCategory.QUEUE,
+                I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_REPLAYED, repository.getName(), replayed, pending.size()));
+        return repository;
     }
 
     public void flushAll() {
@@ -100,6 +175,84 @@ public final class StorageCacheManager {
         }
     }
 
+    private void flushDue() {
+        if (!started) {
+            return;
+        }
+        rebalanceMemory();
+        long now = System.nanoTime();
+        for (CachedRepository<?> repository : repositories) {
+            if (repository.isFlushDue(now)) {
+                repository.flush();
+            }
+        }
+    }
+
+    /**
+     * Splits the shared memory ceiling by smoothed access volume, counting a miss more than a hit: a cache that misses
+     * gets room to grow, while one whose working set fits keeps what its hits earn. Access volume does not depend on
+     * the share, so a shrinking cache cannot talk itself down to the floor. A repository without traffic since the
+     * last pass keeps its share; a repo's own max-bytes stays an upper bound.
+     */
+    private void rebalanceMemory() {
+        long ceiling = config.getMemoryCeilingBytes();
+        if (ceiling <= 0 || repositories.isEmpty()) {
+            return;
+        }
+        List<CachedRepository<?>> current = List.copyOf(repositories);
+        ShareState[] states = new ShareState[current.size()];
+        long budget = ceiling;
+        double totalDemand = 0;
+        for (int i = 0; i < current.size(); i++) {
+            CachedRepository<?> repository = current.get(i);
+            CacheMetrics.CacheMetricsSnapshot snapshot = repository.getMetrics().snapshot(repository.getName());
+            ShareState state = shareStates.computeIfAbsent(repository, ignored -> new ShareState());
+            long hits = snapshot.hits() - state.hits;
+            long misses = snapshot.misses() - state.misses;
+            state.hits = snapshot.hits();
+            state.misses = snapshot.misses();
+            if (hits + misses == 0 && state.share >= 0) {
+                budget -= state.share;
+                continue;
+            }
+            state.hitRate += SHARE_EWMA_ALPHA * (hits - state.hitRate);
+            state.missRate += SHARE_EWMA_ALPHA * (misses - state.missRate);
+            states[i] = state;
+            totalDemand += state.demand();
+        }
+        double total = 0;
+        double[] scores = new double[current.size()];
+        for (int i = 0; i < current.size(); i++) {
+            if (states[i] != null) {
+                scores[i] = MIN_SHARE_SCORE + (totalDemand > 0 ? states[i].demand() / totalDemand : 0.0);
+                total += scores[i];
+            }
+        }
+        budget = Math.max(0, budget);
+        for (int i = 0; i < current.size(); i++) {
+            if (states[i] == null) {
+                continue;
+            }
+            CachedRepository<?> repository = current.get(i);
+            long share = (long) (budget * (scores[i] / total));
+            long cap = repository.getPolicy().maxBytes();
+            states[i].share = cap > 0 ? Math.min(cap, share) : share;
+            repository.getCache().setMaxBytes(states[i].share);
+        }
+    }
+
+    private static final class ShareState {
+        private long hits;
+        private long misses;
+        private double hitRate;
+        private double missRate;
+        private long share = -1;
+
+        private double demand() {
+            return hitRate + MISS_WEIGHT * missRate;
+        }
+    }
+
     public void warmUp() {
         if (!started || !config.isWarmupEnabled()) {
             return;
@@ -119,7 +272,7 @@ public final class StorageCacheManager {
         logService.info(LogCategory.CACHE, I18n.get().tr(LangKeys.LOG_STORAGE_CACHE_WARMUP_START, limit));
         int loaded = 0;
         for (CachedRepository<?> repository : repositories) {
-            loaded += repository.loadAll(limit).size();
+            loaded += repository.warmUp(limit, config.getWarmupParallelism());
         }
         logService.info(LogCategory.CACHE,
                 I18n.get().tr(LangKeys.LOG_STORAGE_CACHE_WARMUP_COMPLETE, repositories.size(), loaded));
@@ -134,6 +287,13 @@ public final class StorageCacheManager {
         long evictedOverflow = 0;
         int lastQueueSize = 0;
         int maxQueueSize = 0;
+        long admitted = 0;
+        long rejected = 0;
+        long residentBytes = 0;
+        long maxBytes = 0;
+        long deduplicatedLoads = 0;
+        long negativeHits = 0;
+        long refreshes = 0;
         for (CachedRepository<?> repository : repositories) {
             CacheMetrics.CacheMetricsSnapshot snapshot = repository.getMetrics().snapshot(repository.getName());
             hits += snapshot.hits();
@@ -144,6 +304,13 @@ public final class StorageCacheManager {
             evictedOverflow += snapshot.evictedOverflow();
             lastQueueSize = Math.max(lastQueueSize, snapshot.lastQueueSize());
             maxQueueSize = Math.max(maxQueueSize, snapshot.maxQueueSize());
+            admitted += snapshot.admitted();
+            rejected += snapshot.rejected();
+            residentBytes += snapshot.residentBytes();
+            maxBytes += snapshot.maxBytes();
+            deduplicatedLoads += snapshot.deduplicatedLoads();
+            negativeHits += snapshot.negativeHits();
+            refreshes += snapshot.refreshes();
         }
         double hitRate = hits + misses == 0 ? 0.0 : (double) hits / (double) (hits + misses);
         return new CacheMetrics.CacheMetricsSnapshot(
@@ -156,7 +323,15 @@ public final class StorageCacheManager {
                 evictedExpired,
                 evictedOverflow,
                 lastQueueSize,
-                maxQueueSize
+                maxQueueSize,
+                admitted,
+                rejected,
+                residentBytes,
+                maxBytes,
+                deduplicatedLoads,
+                negativeHits,
+                misses == 0 ? 0.0 : (double) negativeHits / (double) misses,
+                refreshes
         );
     }
 
@@ -0,0 +1,42 @@
+package Arcadia.ClexaGod.arcadia.storage.index;
+
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+import lombok.Getter;
+
+/**
+ * Equality or inclusive range lookup on a {@link RecordIndex}. Raw bounds are kept for database backends; the
+ * encoded form is what in-memory and sidecar indexes compare against.
+ */
+@Getter
+public final class IndexQuery<T extends StorageRecord> {
+
+    private final RecordIndex<T> index;
+    private final Object from;
+    private final Object to;
+    private final String encodedFrom;
+    private final String encodedTo;
+
+    IndexQuery(RecordIndex<T> index, Object from, Object to) {
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        this.encodedFrom = index.encode(from);
+        this.encodedTo = index.encode(to);
+    }
+
+    public boolean isEquality() {
+        return encodedFrom != null && encodedFrom.equals(encodedTo);
+    }
+
+    public boolean matches(T record) {
+        return matchesValue(index.valueOf(record));
+    }
+
+    public boolean matchesValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        return (encodedFrom == null || value.compareTo(encodedFrom) >= 0)
+                && (encodedTo == null || value.compareTo(encodedTo) <= 0);
+    }
+}
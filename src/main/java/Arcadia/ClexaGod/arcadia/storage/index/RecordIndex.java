@@ -0,0 +1,101 @@
+package Arcadia.ClexaGod.arcadia.storage.index;
+
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Declarative secondary index over one field of a record. Values are kept as order-preserving strings so equality
+ * and range lookups work the same way for text and numbers.
+ *
+ * @param name          index name, unique per repository ([a-z0-9_])
+ * @param kind          how values are encoded and compared
+ * @param extractor     encoded field value of a record; null leaves the record out of the index
+ * @param jsonField     dot-separated JSON field path ({@code owner.name}) the database indexes; null answers queries
+ *                      by scanning
+ */
+public record RecordIndex<T extends StorageRecord>(String name, IndexKind kind, Function<T, String> extractor,
+                                                   String jsonField) {
+
+    public RecordIndex {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(kind, "kind");
+        Objects.requireNonNull(extractor, "extractor");
+        name = name.trim().toLowerCase(Locale.ROOT);
+        if (!name.matches("[a-z0-9_]{1,48}")) {
+            throw new IllegalArgumentException("Invalid index name: " + name);
+        }
+        if (jsonField != null && !jsonField.matches("[A-Za-z0-9_]{1,64}(\\.[A-Za-z0-9_]{1,64}){0,7}")) {
+            throw new IllegalArgumentException("Invalid JSON field path: " + jsonField);
+        }
+    }
+
+    public static <T extends StorageRecord> RecordIndex<T> text(String name, Function<T, String> field) {
+        return new RecordIndex<>(name, IndexKind.TEXT, field, null);
+    }
+
+    public static <T extends StorageRecord> RecordIndex<T> number(String name, ToLongFunction<T> field) {
+        return new RecordIndex<>(name, IndexKind.NUMBER, record -> encodeNumber(field.applyAsLong(record)), null);
+    }
+
+    /**
+     * Same index, backed by a database index on a field of the stored JSON (e.g. {@code owner} or {@code home.world}).
+     * Only letters, digits and underscores are allowed in each segment; values that are not JSON are left out.
+     */
+    public RecordIndex<T> withJsonField(String path) {
+        return new RecordIndex<>(name, kind, extractor, path);
+    }
+
+    public List<String> jsonPath() {
+        return jsonField == null ? List.of() : List.of(jsonField.split("\\."));
+    }
+
+    public IndexQuery<T> equalTo(Object value) {
+        return new IndexQuery<>(this, value, value);
+    }
+
+    /**
+     * Inclusive range; a null bound leaves that side open.
+     */
+    public IndexQuery<T> between(Object from, Object to) {
+        return new IndexQuery<>(this, from, to);
+    }
+
+    public String valueOf(T record) {
+        if (record == null) {
+            return null;
+        }
+        try {
+            return extractor.apply(record);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public String encode(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (kind == IndexKind.NUMBER) {
+            if (value instanceof Number number) {
+                return encodeNumber(number.longValue());
+            }
+            return encodeNumber(Long.parseLong(value.toString().trim()));
+        }
+        return value.toString();
+    }
+
+    // Fixed-width hex with the sign bit flipped sorts the same as the signed value.
+    private static String encodeNumber(long value) {
+        return String.format("%016x", value ^ Long.MIN_VALUE);
+    }
+
+    public enum IndexKind {
+        TEXT,
+        NUMBER
+    }
+}
@@ -0,0 +1,22 @@
+package Arcadia.ClexaGod.arcadia.storage.journal;
+
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+import Arcadia.ClexaGod.arcadia.storage.repository.StorageRepository;
+import Arcadia.ClexaGod.arcadia.storage.repository.json.JsonCodec;
+
+/**
+ * Implemented by repositories whose records can be serialized outside the backend (write journal, cache weighing).
+ * Repositories without it are not journaled.
+ */
+public interface JournalCodecProvider<T extends StorageRecord> {
+
+    JsonCodec<T> getCodec();
+
+    /**
+     * The repository's codec, or null when it does not provide one.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends StorageRecord> JsonCodec<T> codecOf(StorageRepository<T> repository) {
+        return repository instanceof JournalCodecProvider<?> provider ? (JsonCodec<T>) provider.getCodec() : null;
+    }
+}
@@ -0,0 +1,14 @@
+package Arcadia.ClexaGod.arcadia.storage.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public final class JournalConfig {
+
+    private final boolean enabled;
+    private final String path;
+    private final int syncIntervalMs;
+    private final int compactThresholdKb;
+}
@@ -0,0 +1,12 @@
+package Arcadia.ClexaGod.arcadia.storage.journal;
+
+public record JournalEntry(String repository, JournalOperation operation, String id, String data) {
+
+    public static JournalEntry save(String repository, String id, String data) {
+        return new JournalEntry(repository, JournalOperation.SAVE, id, data);
+    }
+
+    public static JournalEntry delete(String repository, String id) {
+        return new JournalEntry(repository, JournalOperation.DELETE, id, null);
+    }
+}
@@ -0,0 +1,31 @@
+package Arcadia.ClexaGod.arcadia.storage.journal;
+
+import java.util.Locale;
+
+public enum JournalOperation {
+    SAVE("save"),
+    DELETE("delete");
+
+    private final String id;
+
+    JournalOperation(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static JournalOperation from(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String value = raw.trim().toLowerCase(Locale.ROOT);
+        for (JournalOperation operation : values()) {
+            if (operation.id.equals(value)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,4 @@
+package Arcadia.ClexaGod.arcadia.storage.journal;
+
+public record PendingEntry(long sequence, JournalEntry entry) {
+}
@@ -0,0 +1,446 @@
+package Arcadia.ClexaGod.arcadia.storage.journal;
+
+import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
+import Arcadia.ClexaGod.arcadia.logging.LogCategory;
+import Arcadia.ClexaGod.arcadia.logging.LogService;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.allaymc.api.message.I18n;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of queued writes. Appends are buffered and fsynced in groups by a single
+ * flusher; {@link #whenSynced(long)} completes once an entry is on disk. Applied entries are acked
+ * and dropped when the file is truncated or compacted.
+ * Acking an entry also acks every older live entry for the same record, since the newer write replaced them.
+ */
+public final class WriteJournal {
+
+    private static final String FILE_NAME = "write-journal.log";
+
+    private final Path directory;
+    private final Path file;
+    private final LogService logService;
+    private final long syncIntervalNanos;
+    private final long compactThresholdBytes;
+    private final Object lock = new Object();
+    private final Map<Long, String> live = new LinkedHashMap<>();
+    private final Map<Long, String> liveKeys = new HashMap<>();
+    private final Map<String, ArrayDeque<Long>> liveByRecord = new HashMap<>();
+    private final Map<String, List<PendingEntry>> pending = new HashMap<>();
+    private final List<SyncWaiter> syncWaiters = new ArrayList<>();
+    private List<String> buffer = new ArrayList<>();
+    private long nextSequence = 1;
+    private long syncedSequence;
+    private long liveBytes;
+    private long fileBytes;
+    private FileChannel channel;
+    private Future<?> flusher;
+    private volatile Thread flusherThread;
+    private volatile boolean open;
+
+    public WriteJournal(Path directory, LogService logService, int syncIntervalMs, int compactThresholdKb) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.file = directory.resolve(FILE_NAME);
+        this.logService = Objects.requireNonNull(logService, "logService");
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, syncIntervalMs));
+        this.compactThresholdBytes = Math.max(1, compactThresholdKb) * 1024L;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void open(ExecutorService executor) throws IOException {
+        if (open) {
+            return;
+        }
+        Files.createDirectories(directory);
+        synchronized (lock) {
+            readExisting();
+            rewrite(new ArrayList<>(live.values()));
+            open = true;
+        }
+        flusher = executor.submit(this::flushLoop);
+        logService.info(LogCategory.QUEUE,
+                I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_OPENED, file.toString(), getPendingCount()));
+    }
+
+    public long append(JournalEntry entry) {
+        if (entry == null) {
+            return -1;
+        }
+        synchronized (lock) {
+            if (!open) {
+                return -1;
+            }
+            long sequence = nextSequence++;
+            String line = encode(sequence, entry);
+            live.put(sequence, line);
+            track(sequence, recordKey(entry));
+            liveBytes += line.length() + 1;
+            buffer.add(line);
+            return sequence;
+        }
+    }
+
+    /**
+     * Completes once the flusher has forced the entry to disk, together with everything appended in the same interval.
+     */
+    public CompletableFuture<Void> whenSynced(long sequence) {
+        synchronized (lock) {
+            if (sequence <= syncedSequence || !open) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> synced = new CompletableFuture<>();
+            syncWaiters.add(new SyncWaiter(sequence, synced));
+            return synced;
+        }
+    }
+
+    /**
+     * Removes an entry whose write never got queued, leaving older entries for the same record live.
+     */
+    public void discard(long sequence) {
+        if (sequence <= 0) {
+            return;
+        }
+        synchronized (lock) {
+            String key = liveKeys.get(sequence);
+            if (key == null) {
+                return;
+            }
+            ArrayDeque<Long> sequences = liveByRecord.get(key);
+            if (sequences != null) {
+                sequences.remove(sequence);
+                if (sequences.isEmpty()) {
+                    liveByRecord.remove(key);
+                }
+            }
+            dropLive(sequence);
+        }
+    }
+
+    public void ack(long sequence) {
+        if (sequence <= 0) {
+            return;
+        }
+        synchronized (lock) {
+            String key = liveKeys.get(sequence);
+            if (key == null) {
+                return;
+            }
+            ArrayDeque<Long> sequences = liveByRecord.get(key);
+            while (sequences != null && !sequences.isEmpty() && sequences.peekFirst() <= sequence) {
+                dropLive(sequences.pollFirst());
+            }
+            if (sequences != null && sequences.isEmpty()) {
+                liveByRecord.remove(key);
+            }
+        }
+    }
+
+    private void dropLive(long sequence) {
+        liveKeys.remove(sequence);
+        String line = live.remove(sequence);
+        if (line == null) {
+            return;
+        }
+        liveBytes -= line.length() + 1;
+        if (open) {
+            buffer.add("{\"ack\":" + sequence + "}");
+        }
+    }
+
+    private void track(long sequence, String key) {
+        liveKeys.put(sequence, key);
+        liveByRecord.computeIfAbsent(key, ignored -> new ArrayDeque<>()).addLast(sequence);
+    }
+
+    private static String recordKey(JournalEntry entry) {
+        return entry.repository() + ":" + entry.id();
+    }
+
+    public List<PendingEntry> takePending(String repository) {
+        if (repository == null) {
+            return List.of();
+        }
+        synchronized (lock) {
+            List<PendingEntry> entries = pending.remove(repository);
+            return entries != null ? entries : List.of();
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            int count = 0;
+            for (List<PendingEntry> entries : pending.values()) {
+                count += entries.size();
+            }
+            return count;
+        }
+    }
+
+    public int getLiveCount() {
+        synchronized (lock) {
+            return live.size();
+        }
+    }
+
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        Thread thread = flusherThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        if (flusher != null) {
+            try {
+                flusher.get(5, TimeUnit.SECONDS);
+            } catch (Exception ignored) {
+                // Final flush below covers anything left
+            }
+        }
+        flush();
+        List<SyncWaiter> waiters;
+        synchronized (lock) {
+            closeChannel();
+            buffer = new ArrayList<>();
+            waiters = new ArrayList<>(syncWaiters);
+            syncWaiters.clear();
+        }
+        // The queue has drained before the journal closes, so nobody is left relying on these entries.
+        waiters.forEach(waiter -> waiter.synced().complete(null));
+    }
+
+    private void flushLoop() {
+        flusherThread = Thread.currentThread();
+        while (open) {
+            LockSupport.parkNanos(this, syncIntervalNanos);
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<String> lines;
+        List<String> snapshot = null;
+        boolean truncate = false;
+        long appended;
+        synchronized (lock) {
+            if (channel == null) {
+                return;
+            }
+            appended = nextSequence - 1;
+            lines = buffer;
+            buffer = new ArrayList<>();
+            if (live.isEmpty()) {
+                truncate = true;
+            } else if (fileBytes > compactThresholdBytes && fileBytes > liveBytes * 2) {
+                snapshot = new ArrayList<>(live.values());
+            }
+        }
+        // File I/O runs outside the lock so appends never wait on fsync.
+        try {
+            if (truncate) {
+                // Everything written so far has been applied; drop the contents instead of appending acks.
+                if (fileBytes > 0) {
+                    channel.truncate(0);
+                    channel.force(false);
+                    fileBytes = 0;
+                }
+            } else if (snapshot != null) {
+                rewrite(snapshot);
+            } else if (!lines.isEmpty()) {
+                fileBytes += writeLines(channel, lines);
+                channel.force(false);
+            }
+            synced(appended);
+        } catch (IOException e) {
+            logService.error(LogCategory.QUEUE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_WRITE_FAILED, file.toString()), e);
+            synchronized (lock) {
+                lines.addAll(buffer);
+                buffer = lines;
+            }
+        }
+    }
+
+    private void synced(long sequence) {
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (lock) {
+            syncedSequence = Math.max(syncedSequence, sequence);
+            syncWaiters.removeIf(waiter -> {
+                if (waiter.sequence() > syncedSequence) {
+                    return false;
+                }
+                ready.add(waiter.synced());
+                return true;
+            });
+        }
+        ready.forEach(synced -> synced.complete(null));
+    }
+
+    private void rewrite(List<String> lines) throws IOException {
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeLines(out, lines);
+            out.force(true);
+        }
+        closeChannel();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // Reopen even if the move failed so later appends still reach the old file
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            fileBytes = channel.size();
+        }
+    }
+
+    private long writeLines(FileChannel target, List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        StringBuilder out = new StringBuilder();
+        for (String line : lines) {
+            out.append(line).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+        long written = 0;
+        while (bytes.hasRemaining()) {
+            written += target.write(bytes);
+        }
+        return written;
+    }
+
+    private void readExisting() throws IOException {
+        live.clear();
+        liveKeys.clear();
+        liveByRecord.clear();
+        pending.clear();
+        liveBytes = 0;
+        if (!Files.exists(file)) {
+            return;
+        }
+        Map<Long, JournalEntry> entries = new LinkedHashMap<>();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+                    if (json.has("ack")) {
+                        long acked = json.get("ack").getAsLong();
+                        entries.remove(acked);
+                        live.remove(acked);
+                        nextSequence = Math.max(nextSequence, acked + 1);
+                        continue;
+                    }
+                    long sequence = json.get("seq").getAsLong();
+                    JournalEntry entry = decode(json);
+                    if (entry == null) {
+                        throw new IllegalStateException("unknown operation");
+                    }
+                    entries.put(sequence, entry);
+                    live.put(sequence, line);
+                    nextSequence = Math.max(nextSequence, sequence + 1);
+                } catch (Exception e) {
+                    // A torn tail line is expected after a crash mid-append
+                    logService.warn(LogCategory.QUEUE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_CORRUPT_LINE, file.toString(), lineNumber));
+                }
+            }
+        }
+        // Only the newest entry per record is replayed; older ones were going to be replaced by it anyway.
+        Map<String, Long> newest = new HashMap<>();
+        for (Map.Entry<Long, JournalEntry> entry : entries.entrySet()) {
+            newest.merge(recordKey(entry.getValue()), entry.getKey(), Math::max);
+        }
+        entries.entrySet().removeIf(entry -> {
+            if (newest.get(recordKey(entry.getValue())) == entry.getKey().longValue()) {
+                return false;
+            }
+            live.remove(entry.getKey());
+            return true;
+        });
+        for (Map.Entry<Long, JournalEntry> entry : entries.entrySet()) {
+            liveBytes += live.get(entry.getKey()).length() + 1;
+            track(entry.getKey(), recordKey(entry.getValue()));
+            pending.computeIfAbsent(entry.getValue().repository(), ignored -> new ArrayList<>())
+                    .add(new PendingEntry(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with a broken channel
+        }
+        channel = null;
+    }
+
+    private record SyncWaiter(long sequence, CompletableFuture<Void> synced) {
+    }
+
+    private static String encode(long sequence, JournalEntry entry) {
+        JsonObject json = new JsonObject();
+        json.addProperty("seq", sequence);
+        json.addProperty("op", entry.operation().getId());
+        json.addProperty("repo", entry.repository());
+        json.addProperty("id", entry.id());
+        if (entry.data() != null) {
+            json.addProperty("data", entry.data());
+        }
+        return json.toString();
+    }
+
+    private static JournalEntry decode(JsonObject json) {
+        JournalOperation operation = JournalOperation.from(json.get("op").getAsString());
+        if (operation == null) {
+            return null;
+        }
+        JsonElement data = json.get("data");
+        return new JournalEntry(
+                json.get("repo").getAsString(),
+                operation,
+                json.get("id").getAsString(),
+                data != null && !data.isJsonNull() ? data.getAsString() : null
+        );
+    }
+}
@@ -3,21 +3,38 @@ package Arcadia.ClexaGod.arcadia.storage.json;
 import lombok.experimental.UtilityClass;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 @UtilityClass
 public class AtomicFileWriter {
 
+    static final String LOCK_SWEEP_MARKER = ".arcadia-lock-sweep";
+
     private static final int STRIPES = 256;
     private static final ReentrantLock[] JVM_LOCKS = new ReentrantLock[STRIPES];
+    private static final Map<Path, DirectoryGroupCommit> GROUP_COMMITS = new ConcurrentHashMap<>();
+    private static final Map<Path, DirectoryLock> DIRECTORY_LOCKS = new ConcurrentHashMap<>();
+    private static final AtomicLong TEMP_SEQUENCE = new AtomicLong();
+    private static volatile FileDurability durability = FileDurability.NONE;
+    private static volatile FileLockMode lockMode = FileLockMode.FILE;
 
     static {
         for (int i = 0; i < STRIPES; i++) {
@@ -25,37 +42,291 @@ public class AtomicFileWriter {
         }
     }
 
+    public static FileDurability getDurability() {
+        return durability;
+    }
+
+    /**
+     * none: temp file + rename only. per-write: fsync the file and its directory on every write. group-commit:
+     * concurrent writes to the same directory, and the files of one {@link #writeAll} call, are fsynced and renamed
+     * together, with one directory fsync per batch.
+     */
+    public static void setDurability(FileDurability mode) {
+        durability = mode != null ? mode : FileDurability.NONE;
+    }
+
+    public static FileLockMode getLockMode() {
+        return lockMode;
+    }
+
+    /**
+     * process: striped in-process locks only, for a data directory owned by one server. directory: one OS lock file
+     * per directory for data shared between processes. file: the legacy {@code <file>.lock} sidecar per record.
+     */
+    public static void setLockMode(FileLockMode mode) {
+        lockMode = mode != null ? mode : FileLockMode.FILE;
+    }
+
     public static void write(Path path, String content) throws IOException {
-        Path parent = path.getParent();
-        if (parent != null && !Files.exists(parent)) {
+        Path target = path.toAbsolutePath().normalize();
+        Path parent = target.getParent();
+        if (!Files.exists(parent)) {
             Files.createDirectories(parent);
         }
 
-        Path lockPath = path.resolveSibling(path.getFileName() + ".lock");
-        ReentrantLock jvmLock = lockFor(lockPath);
+        FileDurability mode = durability;
+        DirectoryGroupCommit.Pending staged = null;
+        DirectoryLock directoryLock = null;
+        ReentrantLock jvmLock = lockFor(target);
         jvmLock.lock();
-        try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
-             FileLock ignored = channel.lock()) {
-            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            switch (lockMode) {
+                case FILE -> {
+                    // An OS file lock cannot be shared between threads, so this mode waits for its commit under it
+                    Path lockPath = target.resolveSibling(target.getFileName() + ".lock");
+                    try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                         FileLock ignored = channel.lock()) {
+                        finish(stage(target, parent, content, mode));
+                    }
+                }
+                case DIRECTORY -> {
+                    directoryLock = DIRECTORY_LOCKS.computeIfAbsent(parent, DirectoryLock::new);
+                    directoryLock.acquire();
+                    try {
+                        staged = stage(target, parent, content, mode);
+                    } catch (IOException | RuntimeException e) {
+                        directoryLock.release();
+                        throw e;
+                    }
+                }
+                default -> staged = stage(target, parent, content, mode);
+            }
+        } finally {
+            jvmLock.unlock();
+        }
+        // Waits for the group commit outside the stripe lock, so writers of colliding paths can join the same batch
+        try {
+            finish(staged);
+        } finally {
+            if (directoryLock != null) {
+                directoryLock.release();
+            }
+        }
+    }
+
+    /**
+     * Writes several files. In group-commit mode with the process lock mode every file is staged first and each
+     * directory is committed in one pass, so a batch costs one fsync round per directory instead of one per file.
+     * Other modes write the files one by one.
+     *
+     * @return the files that were not written, with their error
+     */
+    public static Map<Path, IOException> writeAll(Map<Path, String> files) {
+        Map<Path, IOException> failures = new LinkedHashMap<>();
+        if (durability != FileDurability.GROUP_COMMIT || lockMode != FileLockMode.PROCESS || files.size() == 1) {
+            for (Map.Entry<Path, String> entry : files.entrySet()) {
+                try {
+                    write(entry.getKey(), entry.getValue());
+                } catch (IOException e) {
+                    failures.put(entry.getKey(), e);
+                }
+            }
+            return failures;
+        }
+
+        Map<Path, Path> targets = new LinkedHashMap<>();
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Path path : files.keySet()) {
+            Path target = path.toAbsolutePath().normalize();
             try {
-                Files.writeString(tempPath, content, StandardCharsets.UTF_8,
-                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                if (!Files.exists(target.getParent())) {
+                    Files.createDirectories(target.getParent());
+                }
+            } catch (IOException e) {
+                failures.put(path, e);
+                continue;
+            }
+            targets.put(path, target);
+            stripes.add(stripeOf(target));
+        }
 
+        // Stripes are taken in index order, so two concurrent batches cannot deadlock
+        Map<Path, DirectoryGroupCommit.Pending> staged = new LinkedHashMap<>();
+        for (int stripe : stripes) {
+            JVM_LOCKS[stripe].lock();
+        }
+        try {
+            for (Map.Entry<Path, Path> entry : targets.entrySet()) {
+                Path target = entry.getValue();
                 try {
-                    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                } catch (AtomicMoveNotSupportedException e) {
-                    Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+                    staged.put(entry.getKey(), stage(target, target.getParent(), files.get(entry.getKey()),
+                            FileDurability.GROUP_COMMIT));
+                } catch (IOException e) {
+                    failures.put(entry.getKey(), e);
+                }
+            }
+        } finally {
+            for (int stripe : stripes.descendingSet()) {
+                JVM_LOCKS[stripe].unlock();
+            }
+        }
+        // The first wait of each directory leads a commit that already holds every staged file of that directory
+        for (Map.Entry<Path, DirectoryGroupCommit.Pending> entry : staged.entrySet()) {
+            try {
+                finish(entry.getValue());
+            } catch (IOException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * One-shot cleanup after leaving the file lock mode: deletes the per-record {@code .lock} sidecars under
+     * {@code root}, keeping directory lock files. A finished sweep leaves a {@value #LOCK_SWEEP_MARKER} file in
+     * {@code root}, and later calls return without walking the tree until {@link #resetLockSweep} removes it.
+     *
+     * @return number of deleted files
+     */
+    public static int deleteStaleLockFiles(Path root) throws IOException {
+        if (!Files.isDirectory(root) || Files.exists(root.resolve(LOCK_SWEEP_MARKER))) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                String name = file.getFileName().toString();
+                if (name.endsWith(".lock") && !name.equals(DirectoryLock.FILE_NAME) && Files.isRegularFile(file)
+                        && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        }
+        Files.write(root.resolve(LOCK_SWEEP_MARKER), new byte[0]);
+        return deleted;
+    }
+
+    /**
+     * Deletes {@code .tmp} files under {@code root} that a write interrupted by a crash left behind, both the
+     * {@code <file>.<seq>.tmp} names of the group commit and the plain {@code <file>.tmp} ones. Only files last
+     * modified before {@code cutoff} go, so writes still in flight keep their temp file.
+     *
+     * @return number of deleted files
+     */
+    public static int deleteOrphanedTempFiles(Path root, Instant cutoff) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (!file.getFileName().toString().endsWith(".tmp") || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (NoSuchFileException ignored) {
+                    // Renamed or cleaned up by its writer meanwhile
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Forgets a finished sweep, so the next {@link #deleteStaleLockFiles} walks {@code root} again. Called while the
+     * file lock mode is active, since that mode creates new sidecars.
+     */
+    public static void resetLockSweep(Path root) throws IOException {
+        Files.deleteIfExists(root.resolve(LOCK_SWEEP_MARKER));
+    }
+
+    /**
+     * Writes the temp file. Without group commit the write completes here and null is returned; with it the temp
+     * file is queued for the directory's next batch and the caller has to {@link #finish} it.
+     */
+    private static DirectoryGroupCommit.Pending stage(Path path, Path parent, String content, FileDurability mode)
+            throws IOException {
+        if (mode != FileDurability.GROUP_COMMIT) {
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                writeTemp(tempPath, content, mode == FileDurability.PER_WRITE);
+                move(tempPath, path);
+                if (mode == FileDurability.PER_WRITE) {
+                    syncDirectory(parent);
                 }
             } finally {
                 Files.deleteIfExists(tempPath);
             }
+            return null;
+        }
+        // Unique per write: the stripe lock is released before the commit, so the next write of this path may
+        // already be staging while this temp file waits for the leader
+        Path tempPath = path.resolveSibling(path.getFileName() + "." + TEMP_SEQUENCE.incrementAndGet() + ".tmp");
+        try {
+            writeTemp(tempPath, content, false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        return GROUP_COMMITS.computeIfAbsent(parent, DirectoryGroupCommit::new).submit(tempPath, path);
+    }
+
+    private static void finish(DirectoryGroupCommit.Pending staged) throws IOException {
+        if (staged == null) {
+            return;
+        }
+        try {
+            GROUP_COMMITS.get(staged.target().getParent()).await(staged);
         } finally {
-            jvmLock.unlock();
+            Files.deleteIfExists(staged.temp());
+        }
+    }
+
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Makes renames inside the directory durable. Not every platform can open a directory (Windows), so failures
+     * are ignored.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Rename durability then depends on the file system's own journaling
+        }
+    }
+
+    private static void writeTemp(Path tempPath, String content, boolean force) throws IOException {
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(content);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (force) {
+                channel.force(true);
+            }
         }
     }
 
     private static ReentrantLock lockFor(Path path) {
-        int index = Math.floorMod(path.toAbsolutePath().normalize().hashCode(), STRIPES);
-        return JVM_LOCKS[index];
+        return JVM_LOCKS[stripeOf(path)];
+    }
+
+    private static int stripeOf(Path path) {
+        return Math.floorMod(path.hashCode(), STRIPES);
     }
 }
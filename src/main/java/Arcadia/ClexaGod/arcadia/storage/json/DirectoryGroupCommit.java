@@ -0,0 +1,122 @@
+package Arcadia.ClexaGod.arcadia.storage.json;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit for the files of one directory. Writers hand over an unsynced temp file and wait; the first waiter that
+ * finds no commit running becomes the leader, forces every pending temp file, renames them and fsyncs the directory
+ * once for the whole batch. Writes arriving meanwhile form the next batch.
+ */
+final class DirectoryGroupCommit {
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition committed = lock.newCondition();
+    private List<Pending> pending = new ArrayList<>();
+    private boolean committing;
+
+    DirectoryGroupCommit(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Queues an unsynced temp file for the next batch. The caller may drop its own locks afterwards and then
+     * {@link #await} the result, so other writers of the directory can join the same batch meanwhile.
+     */
+    Pending submit(Path temp, Path target) {
+        Pending own = new Pending(temp, target);
+        lock.lock();
+        try {
+            pending.add(own);
+        } finally {
+            lock.unlock();
+        }
+        return own;
+    }
+
+    /**
+     * Returns once {@code own} has been forced and renamed to its target and the directory entry is durable.
+     */
+    void await(Pending own) throws IOException {
+        lock.lock();
+        try {
+            while (!own.done) {
+                if (committing) {
+                    committed.awaitUninterruptibly();
+                    continue;
+                }
+                committing = true;
+                List<Pending> batch = pending;
+                pending = new ArrayList<>();
+                lock.unlock();
+                try {
+                    apply(batch);
+                } finally {
+                    lock.lock();
+                    committing = false;
+                    for (Pending entry : batch) {
+                        entry.done = true;
+                    }
+                    committed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (own.error != null) {
+            throw own.error;
+        }
+    }
+
+    private void apply(List<Pending> batch) {
+        for (Pending entry : batch) {
+            try (FileChannel channel = FileChannel.open(entry.temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            } catch (IOException e) {
+                entry.error = e;
+            }
+        }
+        boolean moved = false;
+        for (Pending entry : batch) {
+            if (entry.error != null) {
+                continue;
+            }
+            try {
+                AtomicFileWriter.move(entry.temp, entry.target);
+                moved = true;
+            } catch (IOException e) {
+                entry.error = e;
+            }
+        }
+        if (moved) {
+            AtomicFileWriter.syncDirectory(directory);
+        }
+    }
+
+    static final class Pending {
+        private final Path temp;
+        private final Path target;
+        private IOException error;
+        private boolean done;
+
+        private Pending(Path temp, Path target) {
+            this.temp = temp;
+            this.target = target;
+        }
+
+        Path temp() {
+            return temp;
+        }
+
+        Path target() {
+            return target;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package Arcadia.ClexaGod.arcadia.storage.json;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OS lock on one {@value #FILE_NAME} file per directory, shared by every thread of this process and exclusive against
+ * other processes. The first holder takes the file lock and the last one releases it; threads of this process still
+ * serialize per file through the striped locks of {@link AtomicFileWriter}.
+ */
+final class DirectoryLock {
+
+    static final String FILE_NAME = ".arcadia.lock";
+
+    private final Path file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int holders;
+    private FileChannel channel;
+    private FileLock fileLock;
+
+    DirectoryLock(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    void acquire() throws IOException {
+        lock.lock();
+        try {
+            if (holders == 0) {
+                FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                try {
+                    fileLock = opened.lock();
+                } catch (IOException | RuntimeException e) {
+                    opened.close();
+                    throw e;
+                }
+                channel = opened;
+            }
+            holders++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            if (holders == 0 || --holders > 0) {
+                return;
+            }
+            try {
+                fileLock.release();
+            } catch (IOException ignored) {
+                // Closing the channel below drops the lock as well
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            fileLock = null;
+            channel = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package Arcadia.ClexaGod.arcadia.storage.json;
+
+import java.util.Locale;
+
+public enum FileDurability {
+    NONE("none"),
+    PER_WRITE("per-write"),
+    GROUP_COMMIT("group-commit");
+
+    private final String id;
+
+    FileDurability(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static FileDurability from(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String value = raw.trim().toLowerCase(Locale.ROOT);
+        for (FileDurability durability : values()) {
+            if (durability.id.equals(value)) {
+                return durability;
+            }
+        }
+        return null;
+    }
+}
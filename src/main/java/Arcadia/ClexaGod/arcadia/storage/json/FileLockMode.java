@@ -0,0 +1,32 @@
+package Arcadia.ClexaGod.arcadia.storage.json;
+
+import java.util.Locale;
+
+public enum FileLockMode {
+    PROCESS("process"),
+    DIRECTORY("directory"),
+    FILE("file");
+
+    private final String id;
+
+    FileLockMode(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static FileLockMode from(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String value = raw.trim().toLowerCase(Locale.ROOT);
+        for (FileLockMode mode : values()) {
+            if (mode.id.equals(value)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -29,8 +29,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.time.Instant;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 public final class StorageMaintenanceService {
 
@@ -138,24 +139,21 @@ public final class StorageMaintenanceService {
         if (seedConfig.isSeedOwner()) {
             if (metaRepository.exists(META_OWNER)) {
                 skipped++;
-            } else {
-                metaRepository.save(new MetaRecord(META_OWNER, config.getOwner()));
+            } else if (seed(META_OWNER, config.getOwner())) {
                 seeded++;
             }
         }
         if (seedConfig.isSeedServerName()) {
             if (metaRepository.exists(META_SERVER_NAME)) {
                 skipped++;
-            } else {
-                metaRepository.save(new MetaRecord(META_SERVER_NAME, config.getServerName()));
+            } else if (seed(META_SERVER_NAME, config.getServerName())) {
                 seeded++;
             }
         }
         if (seedConfig.isSeedCreatedAt()) {
             if (metaRepository.exists(META_CREATED_AT)) {
                 skipped++;
-            } else {
-                metaRepository.save(new MetaRecord(META_CREATED_AT, Instant.now().toString()));
+            } else if (seed(META_CREATED_AT, Instant.now().toString())) {
                 seeded++;
             }
         }
@@ -164,6 +162,16 @@ public final class StorageMaintenanceService {
                 I18n.get().tr(LangKeys.LOG_STORAGE_SEED_COMPLETE, seeded, skipped));
     }
 
+    private boolean seed(String key, String value) {
+        try {
+            metaRepository.save(new MetaRecord(key, value));
+            return true;
+        } catch (Exception e) {
+            // The backend has already logged the failed write
+            return false;
+        }
+    }
+
     private void runDataMigration(StorageMigrationConfig migrationConfig) {
         if (migrationConfig == null || !migrationConfig.isEnabled()) {
             return;
@@ -233,41 +241,45 @@ public final class StorageMaintenanceService {
             }
 
             int limit = migrationConfig.getMaxRecords();
-            List<MetaRecord> records = source.loadAll(limit);
-            if (records.isEmpty()) {
-                logService.info(LogCategory.MAINTENANCE,
-                        I18n.get().tr(LangKeys.LOG_STORAGE_DATA_MIGRATION_SKIPPED, "no-records"));
-                return;
-            }
-
-            logService.info(LogCategory.MAINTENANCE, I18n.get().tr(
-                    LangKeys.LOG_STORAGE_DATA_MIGRATION_START,
-                    direction.getId(),
-                    limit,
-                    migrationConfig.isDryRun(),
-                    migrationConfig.isSkipExisting()
-            ));
-
             int migrated = 0;
             int skipped = 0;
             int failed = 0;
 
-            for (MetaRecord record : records) {
-                if (migrationConfig.isSkipExisting() && target.exists(record.getId())) {
-                    skipped++;
-                    continue;
+            // Ordered so max-records always covers the same leading ids
+            try (Stream<MetaRecord> stream = source.bulkStream(migrationConfig.getParallelism(), true)) {
+                Iterator<MetaRecord> records = stream.limit(Math.max(0, limit)).iterator();
+                if (!records.hasNext()) {
+                    logService.info(LogCategory.MAINTENANCE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_DATA_MIGRATION_SKIPPED, "no-records"));
+                    return;
                 }
-                if (!migrationConfig.isDryRun()) {
-                    try {
-                        target.save(record);
-                    } catch (Exception e) {
-                        failed++;
-                        logService.error(LogCategory.MAINTENANCE,
-                                I18n.get().tr(LangKeys.LOG_STORAGE_DATA_MIGRATION_FAILED, record.getId()), e);
+
+                logService.info(LogCategory.MAINTENANCE, I18n.get().tr(
+                        LangKeys.LOG_STORAGE_DATA_MIGRATION_START,
+                        direction.getId(),
+                        limit,
+                        migrationConfig.isDryRun(),
+                        migrationConfig.isSkipExisting()
+                ));
+
+                while (records.hasNext()) {
+                    MetaRecord record = records.next();
+                    if (migrationConfig.isSkipExisting() && target.exists(record.getId())) {
+                        skipped++;
                         continue;
                     }
+                    if (!migrationConfig.isDryRun()) {
+                        try {
+                            target.save(record);
+                        } catch (Exception e) {
+                            failed++;
+                            logService.error(LogCategory.MAINTENANCE,
+                                    I18n.get().tr(LangKeys.LOG_STORAGE_DATA_MIGRATION_FAILED, record.getId()), e);
+                            continue;
+                        }
+                    }
+                    migrated++;
                 }
-                migrated++;
             }
 
             logService.info(LogCategory.MAINTENANCE, I18n.get().tr(
@@ -12,4 +12,5 @@ public final class StorageMigrationConfig {
     private final boolean dryRun;
     private final int maxRecords;
     private final boolean skipExisting;
+    private final int parallelism;
 }
@@ -1,6 +1,8 @@
 package Arcadia.ClexaGod.arcadia.storage.migration;
 
+import Arcadia.ClexaGod.arcadia.storage.migration.impl.CreateJsonIndexFunctionsMigration;
 import Arcadia.ClexaGod.arcadia.storage.migration.impl.CreateMetaTableMigration;
+import Arcadia.ClexaGod.arcadia.storage.migration.impl.CreateRecordCountsMigration;
 
 import java.util.List;
 
@@ -11,7 +13,9 @@ public final class PostgresMigrations {
 
     public static List<Migration> list() {
         return List.of(
-                new CreateMetaTableMigration()
+                new CreateMetaTableMigration(),
+                new CreateRecordCountsMigration(),
+                new CreateJsonIndexFunctionsMigration()
         );
     }
 }
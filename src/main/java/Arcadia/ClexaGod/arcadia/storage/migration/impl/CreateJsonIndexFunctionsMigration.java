@@ -0,0 +1,61 @@
+package Arcadia.ClexaGod.arcadia.storage.migration.impl;
+
+import Arcadia.ClexaGod.arcadia.storage.migration.Migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Source for JSON field indexes on arcadia_meta: a value_json JSONB column, filled on write with the value when it is
+ * valid JSON (NULL otherwise), and a numeric cast that returns NULL instead of failing. Neither opens a subtransaction
+ * per row, so index expressions stay cheap on upserts.
+ */
+public final class CreateJsonIndexFunctionsMigration implements Migration {
+
+    @Override
+    public int version() {
+        return 3;
+    }
+
+    @Override
+    public String description() {
+        return "Add value_json column and safe bigint cast for index expressions";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        String column = "ALTER TABLE arcadia_meta ADD COLUMN IF NOT EXISTS value_json JSONB";
+        // One set-based pass; only if some value is not JSON does it fall back to converting row by row, once.
+        String backfill = """
+                DO $$
+                DECLARE
+                    meta RECORD;
+                BEGIN
+                    BEGIN
+                        UPDATE arcadia_meta SET value_json = value::jsonb WHERE value_json IS NULL;
+                    EXCEPTION WHEN others THEN
+                        FOR meta IN SELECT key, value FROM arcadia_meta WHERE value_json IS NULL LOOP
+                            BEGIN
+                                UPDATE arcadia_meta SET value_json = meta.value::jsonb WHERE key = meta.key;
+                            EXCEPTION WHEN others THEN
+                                NULL;
+                            END;
+                        END LOOP;
+                    END;
+                END
+                $$
+                """;
+        // At most 18 digits, so the cast cannot overflow
+        String bigint = """
+                CREATE OR REPLACE FUNCTION arcadia_try_bigint(input TEXT) RETURNS BIGINT AS $$
+                    SELECT CASE WHEN input ~ '^-?[0-9]{1,18}$' THEN input::bigint END
+                $$ LANGUAGE sql IMMUTABLE STRICT
+                """;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(column);
+            statement.execute(backfill);
+            statement.execute(bigint);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package Arcadia.ClexaGod.arcadia.storage.migration.impl;
+
+import Arcadia.ClexaGod.arcadia.storage.migration.Migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Keeps a per-table row count maintained by triggers so count() does not need a full COUNT(*). The count is split
+ * into striped rows picked by the backend pid, so transactions on different pool connections update different rows
+ * instead of queueing on one row lock until commit. count() sums the stripes.
+ */
+public final class CreateRecordCountsMigration implements Migration {
+
+    public static final int STRIPES = 16;
+
+    @Override
+    public int version() {
+        return 2;
+    }
+
+    @Override
+    public String description() {
+        return "Create arcadia_record_count_stripes table and arcadia_meta count triggers";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        String table = """
+                CREATE TABLE IF NOT EXISTS arcadia_record_count_stripes (
+                    table_name VARCHAR(64) NOT NULL,
+                    stripe SMALLINT NOT NULL,
+                    records BIGINT NOT NULL,
+                    PRIMARY KEY (table_name, stripe)
+                )
+                """;
+        String function = """
+                CREATE OR REPLACE FUNCTION arcadia_count_rows() RETURNS TRIGGER AS $$
+                DECLARE
+                    delta BIGINT;
+                BEGIN
+                    IF TG_OP = 'TRUNCATE' THEN
+                        UPDATE arcadia_record_count_stripes SET records = 0 WHERE table_name = TG_TABLE_NAME;
+                        RETURN NULL;
+                    END IF;
+                    delta := CASE WHEN TG_OP = 'INSERT' THEN 1 ELSE -1 END;
+                    INSERT INTO arcadia_record_count_stripes (table_name, stripe, records)
+                    VALUES (TG_TABLE_NAME, pg_backend_pid() %% %d, delta)
+                    ON CONFLICT (table_name, stripe)
+                    DO UPDATE SET records = arcadia_record_count_stripes.records + EXCLUDED.records;
+                    RETURN NULL;
+                END;
+                $$ LANGUAGE plpgsql
+                """.formatted(STRIPES);
+        String seed = """
+                INSERT INTO arcadia_record_count_stripes (table_name, stripe, records)
+                SELECT 'arcadia_meta', stripe, CASE WHEN stripe = 0 THEN (SELECT COUNT(*) FROM arcadia_meta) ELSE 0 END
+                FROM generate_series(0, %d) AS stripe
+                """.formatted(STRIPES - 1);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(table);
+            statement.execute(function);
+            // Block writers so no insert lands between the seed and the triggers
+            statement.execute("LOCK TABLE arcadia_meta IN SHARE ROW EXCLUSIVE MODE");
+            statement.execute("DROP TRIGGER IF EXISTS arcadia_meta_count ON arcadia_meta");
+            statement.execute("DROP TRIGGER IF EXISTS arcadia_meta_count_truncate ON arcadia_meta");
+            statement.execute("""
+                    CREATE TRIGGER arcadia_meta_count AFTER INSERT OR DELETE ON arcadia_meta
+                    FOR EACH ROW EXECUTE FUNCTION arcadia_count_rows()
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER arcadia_meta_count_truncate AFTER TRUNCATE ON arcadia_meta
+                    FOR EACH STATEMENT EXECUTE FUNCTION arcadia_count_rows()
+                    """);
+            statement.execute("DELETE FROM arcadia_record_count_stripes WHERE table_name = 'arcadia_meta'");
+            statement.execute(seed);
+        }
+    }
+}
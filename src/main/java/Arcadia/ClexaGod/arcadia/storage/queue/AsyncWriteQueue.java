@@ -3,20 +3,33 @@ package Arcadia.ClexaGod.arcadia.storage.queue;
 import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
 import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogService;
+import Arcadia.ClexaGod.arcadia.storage.journal.WriteJournal;
+import Arcadia.ClexaGod.arcadia.storage.retry.RetryContext;
+import Arcadia.ClexaGod.arcadia.storage.retry.RetryDeferredException;
 import lombok.Getter;
 import org.allaymc.api.message.I18n;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class AsyncWriteQueue {
 
@@ -25,28 +38,85 @@ public final class AsyncWriteQueue {
     private final int maxQueueSize;
     private final QueueFullPolicy fullPolicy;
     private final int fullTimeoutMs;
-    private final BlockingQueue<QueueItem> queue;
+    private final int batchSize;
+    private final List<QueueLaneConfig> lanes;
+    private final Partition[] partitions;
     private final ConcurrentMap<String, KeyedTask> keyedTasks = new ConcurrentHashMap<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean accepting = new AtomicBoolean(false);
-    private Future<?> workerFuture;
+    private final AtomicInteger unkeyedCursor = new AtomicInteger();
+    private final Set<PendingRetry> waitingRetries = ConcurrentHashMap.newKeySet();
+    private final AtomicLong retriesScheduled = new AtomicLong();
+    private final AtomicLong retriesSuperseded = new AtomicLong();
+    private final AtomicLong retriesExhausted = new AtomicLong();
+    private final AtomicLong retryDelayTotalMs = new AtomicLong();
+    private final AtomicLong retryDelayMaxMs = new AtomicLong();
+    private final AtomicInteger retryAttemptMax = new AtomicInteger();
+    private final AtomicLong promotionsFailed = new AtomicLong();
+    private volatile boolean deferRetries;
 
     @Getter
     private volatile boolean started;
+    @Getter
+    private volatile WriteJournal journal;
 
     public AsyncWriteQueue(ExecutorService executor, LogService logService, int maxQueueSize, QueueFullPolicy fullPolicy, int fullTimeoutMs) {
+        this(executor, logService, maxQueueSize, fullPolicy, fullTimeoutMs, 1, 1, null);
+    }
+
+    public AsyncWriteQueue(ExecutorService executor, LogService logService, int maxQueueSize, QueueFullPolicy fullPolicy,
+                           int fullTimeoutMs, int workers, int batchSize) {
+        this(executor, logService, maxQueueSize, fullPolicy, fullTimeoutMs, workers, batchSize, null);
+    }
+
+    public AsyncWriteQueue(ExecutorService executor, LogService logService, int maxQueueSize, QueueFullPolicy fullPolicy,
+                           int fullTimeoutMs, int workers, int batchSize, List<QueueLaneConfig> lanes) {
         this.executor = Objects.requireNonNull(executor, "executor");
         this.logService = Objects.requireNonNull(logService, "logService");
         this.maxQueueSize = Math.max(1, maxQueueSize);
         this.fullPolicy = fullPolicy != null ? fullPolicy : QueueFullPolicy.BLOCK;
         this.fullTimeoutMs = Math.max(0, fullTimeoutMs);
-        this.queue = new LinkedBlockingQueue<>(this.maxQueueSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.lanes = resolveLanes(lanes, this.maxQueueSize, this.fullPolicy);
+        int partitionCount = Math.max(1, Math.min(workers, this.maxQueueSize));
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(this.lanes, partitionCount);
+        }
+    }
+
+    private static List<QueueLaneConfig> resolveLanes(List<QueueLaneConfig> configured, int maxQueueSize,
+                                                      QueueFullPolicy fullPolicy) {
+        Map<WritePriority, QueueLaneConfig> byPriority = new EnumMap<>(WritePriority.class);
+        for (QueueLaneConfig lane : QueueLaneConfig.defaults(maxQueueSize, fullPolicy)) {
+            byPriority.put(lane.priority(), lane);
+        }
+        if (configured != null) {
+            for (QueueLaneConfig lane : configured) {
+                if (lane != null) {
+                    byPriority.put(lane.priority(), lane);
+                }
+            }
+        }
+        return List.copyOf(byPriority.values());
     }
 
     public int getMaxQueueSize() {
         return maxQueueSize;
     }
 
+    public int getWorkerCount() {
+        return partitions.length;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public List<QueueLaneConfig> getLanes() {
+        return lanes;
+    }
+
     public QueueFullPolicy getFullPolicy() {
         return fullPolicy;
     }
@@ -55,12 +125,35 @@ public final class AsyncWriteQueue {
         return fullTimeoutMs;
     }
 
+    /**
+     * Attaches a journal that is opened on {@link #start()} and closed after shutdown drains.
+     * Only takes effect while the queue is stopped.
+     */
+    public void setJournal(WriteJournal journal) {
+        if (!started) {
+            this.journal = journal;
+        }
+    }
+
     public void start() {
         if (!running.compareAndSet(false, true)) {
             return;
         }
+        WriteJournal current = journal;
+        if (current != null) {
+            try {
+                current.open(executor);
+            } catch (IOException e) {
+                logService.error(LogCategory.QUEUE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_JOURNAL_OPEN_FAILED, current.getFile().toString()), e);
+                journal = null;
+            }
+        }
+        deferRetries = true;
         accepting.set(true);
-        workerFuture = executor.submit(this::runLoop);
+        for (Partition partition : partitions) {
+            partition.worker = executor.submit(() -> runLoop(partition));
+        }
         started = true;
         logService.info(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_STARTED));
     }
@@ -75,77 +168,159 @@ public final class AsyncWriteQueue {
 
         String key = normalizeKey(task.key());
         if (key == null) {
-            OfferResult result = offerQueueItem(new QueueItem(null, task), task, null);
+            OfferResult result = offerQueueItem(nextUnkeyedPartition(), new QueueItem(null, task, task.priority(), 1), task, null);
             return result != OfferResult.DROPPED;
         }
-
-        KeyedTask next = new KeyedTask(task, new CompletableFuture<>());
-        KeyedTask previous = keyedTasks.put(key, next);
-        if (previous == null) {
-            OfferResult result = offerQueueItem(new QueueItem(key, null), task, next.completion());
-            if (result != OfferResult.QUEUED) {
-                keyedTasks.remove(key, next);
-            }
-            return result != OfferResult.DROPPED;
-        }
-        previous.completion().complete(false);
-        return true;
+        WriteJournal current = journal;
+        CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        long sequence = appendJournal(current, task, completion);
+        return enqueueKeyed(key, task, completion, current, sequence) != OfferResult.DROPPED;
     }
 
     public boolean enqueueAndWait(WriteTask task, Duration timeout) {
         if (task == null || timeout == null) {
             return false;
         }
-        if (!accepting.get()) {
-            return false;
+        return awaitCompletion(enqueueAsync(task), timeout);
+    }
+
+    /**
+     * Enqueues a task and returns a future that completes once the write has been applied: true on success,
+     * false when it was rejected or dropped, exceptionally when it failed. A write replaced by a newer one for
+     * the same key completes with the newer write's outcome. A journaled write also waits for the journal's next
+     * group fsync, so completion means the entry was durable even if the write raced ahead of it.
+     */
+    public CompletableFuture<Boolean> enqueueAsync(WriteTask task) {
+        if (task == null || !accepting.get()) {
+            return CompletableFuture.completedFuture(false);
         }
         String key = normalizeKey(task.key());
         if (key == null) {
-            return enqueueAndWaitUnkeyed(task, timeout);
+            return enqueueUnkeyedAsync(task);
         }
 
+        WriteJournal current = journal;
         CompletableFuture<Boolean> completion = new CompletableFuture<>();
-        KeyedTask next = new KeyedTask(task, completion);
-        KeyedTask previous = keyedTasks.put(key, next);
+        long sequence = appendJournal(current, task, completion);
+        if (enqueueKeyed(key, task, completion, current, sequence) == OfferResult.DROPPED) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (sequence <= 0) {
+            return completion;
+        }
+        return current.whenSynced(sequence).thenCombine(completion, (synced, written) -> written);
+    }
+
+    private long appendJournal(WriteJournal current, WriteTask task, CompletableFuture<Boolean> completion) {
+        if (current == null || task.journal() == null) {
+            return -1;
+        }
+        long sequence = current.append(task.journal());
+        if (sequence > 0) {
+            // Only applied writes are acked, superseded ones through the newer write's outcome; failed ones stay
+            // in the journal for replay.
+            completion.whenComplete((written, error) -> {
+                if (error == null && Boolean.TRUE.equals(written)) {
+                    current.ack(sequence);
+                }
+            });
+        }
+        return sequence;
+    }
+
+    private OfferResult enqueueKeyed(String key, WriteTask task, CompletableFuture<Boolean> completion,
+                                     WriteJournal current, long sequence) {
+        WritePriority priority = task.priority();
+        KeyedTask[] replaced = new KeyedTask[1];
+        KeyedTask next = keyedTasks.compute(key, (ignored, previous) -> {
+            replaced[0] = previous;
+            WritePriority queuedIn = previous == null || priority.isHigherThan(previous.queuedIn())
+                    ? priority
+                    : previous.queuedIn();
+            return new KeyedTask(task, completion, queuedIn, 1);
+        });
+        KeyedTask previous = replaced[0];
+        Partition partition = partitionFor(key);
         if (previous == null) {
-            OfferResult result = offerQueueItem(new QueueItem(key, null), task, completion);
+            OfferResult result = offerQueueItem(partition, new QueueItem(key, null, priority, 0), task, completion);
             if (result != OfferResult.QUEUED) {
                 keyedTasks.remove(key, next);
-                if (result == OfferResult.DROPPED) {
-                    return false;
-                }
             }
-        } else {
-            previous.completion().complete(false);
+            if (result == OfferResult.DROPPED && sequence > 0) {
+                // Never queued, so the caller already knows it was lost; an older entry for the record stays live.
+                current.discard(sequence);
+            }
+            return result;
         }
-        return awaitCompletion(completion, timeout);
+        follow(previous.completion(), completion);
+        if (priority.isHigherThan(previous.queuedIn()) && !promote(partition, key, priority)) {
+            // The task still runs from the older item's slower lane; a later write may try the promotion again.
+            keyedTasks.computeIfPresent(key, (ignored, latest) -> latest.queuedIn() == priority
+                    ? new KeyedTask(latest.task(), latest.completion(), previous.queuedIn(), latest.attempt())
+                    : latest);
+        }
+        return OfferResult.QUEUED;
+    }
+
+    /**
+     * The older item still sits in a slower lane; whichever item is served first runs the latest task. A full lane is
+     * waited on under its BLOCK policy, otherwise the promotion is given up and counted.
+     */
+    private boolean promote(Partition partition, String key, WritePriority priority) {
+        Lane lane = partition.lane(priority);
+        QueueItem item = new QueueItem(key, null, priority, 0);
+        if (lane.queue.offer(item)) {
+            partition.wake();
+            return true;
+        }
+        logService.warn(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_FULL,
+                lane.config.priority().getId(), lane.capacity));
+        if (lane.config.fullPolicy() == QueueFullPolicy.BLOCK && fullTimeoutMs > 0
+                && awaitOffer(partition, lane, item)) {
+            return true;
+        }
+        promotionsFailed.incrementAndGet();
+        return false;
     }
 
-    private boolean enqueueAndWaitUnkeyed(WriteTask task, Duration timeout) {
+    private CompletableFuture<Boolean> enqueueUnkeyedAsync(WriteTask task) {
         CompletableFuture<Boolean> completion = new CompletableFuture<>();
         WriteTask wrapped = new WriteTask(null, task.description(), () -> {
             try {
                 task.action().run();
                 completion.complete(true);
+            } catch (RetryDeferredException e) {
+                throw e;
             } catch (Exception e) {
                 completion.completeExceptionally(e);
                 throw e;
             }
-        });
-        OfferResult result = offerQueueItem(new QueueItem(null, wrapped), task, completion);
+        }, null, null, task.priority());
+        OfferResult result = offerQueueItem(nextUnkeyedPartition(), new QueueItem(null, wrapped, task.priority(), 1), task,
+                completion);
         if (result == OfferResult.DROPPED) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
-        return awaitCompletion(completion, timeout);
+        return completion;
     }
 
     public void shutdown(Duration timeout) {
         accepting.set(false);
+        // Retries waiting on the timer run now, and from here on failures retry inline with backoff.
+        deferRetries = false;
+        for (PendingRetry retry : List.copyOf(waitingRetries)) {
+            if (waitingRetries.remove(retry)) {
+                offerRetry(retry.item());
+            }
+        }
         running.set(false);
+        for (Partition partition : partitions) {
+            partition.wake();
+        }
         logService.info(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_STOPPING));
         boolean drained = waitForDrain(timeout);
         if (!drained) {
-            int pendingItems = queue.size();
+            int pendingItems = getQueueSize();
             int pendingKeys = keyedTasks.size();
             logService.warn(LogCategory.QUEUE,
                     I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_FORCE_DRAIN, pendingItems, pendingKeys));
@@ -154,56 +329,282 @@ public final class AsyncWriteQueue {
             logService.warn(LogCategory.QUEUE,
                     I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_FORCE_DRAIN_COMPLETE, drainedInline));
         }
+        WriteJournal current = journal;
+        if (current != null) {
+            current.close();
+        }
         started = false;
         logService.info(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_STOPPED));
     }
 
     public int getQueueSize() {
-        return queue.size();
+        int size = 0;
+        for (Partition partition : partitions) {
+            size += partition.size();
+        }
+        return size;
     }
 
-    private void runLoop() {
-        while (running.get() || !queue.isEmpty()) {
-            QueueItem item;
-            try {
-                item = queue.poll(200, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+    public List<Integer> getPartitionSizes() {
+        List<Integer> sizes = new ArrayList<>(partitions.length);
+        for (Partition partition : partitions) {
+            sizes.add(partition.size());
+        }
+        return sizes;
+    }
+
+    /**
+     * Higher-priority writes whose promotion into a full lane was given up; they ran from the older, slower lane.
+     */
+    public long getPromotionsFailed() {
+        return promotionsFailed.get();
+    }
+
+    public Map<WritePriority, Integer> getLaneSizes() {
+        Map<WritePriority, Integer> sizes = new EnumMap<>(WritePriority.class);
+        for (QueueLaneConfig lane : lanes) {
+            sizes.put(lane.priority(), 0);
+        }
+        for (Partition partition : partitions) {
+            for (Lane lane : partition.lanes) {
+                sizes.merge(lane.config.priority(), lane.queue.size(), Integer::sum);
             }
-            if (item == null) {
+        }
+        return sizes;
+    }
+
+    private void runLoop(Partition partition) {
+        partition.workerThread = Thread.currentThread();
+        List<QueueItem> drained = new ArrayList<>(batchSize);
+        while (running.get() || !partition.isEmpty()) {
+            partition.drainWeighted(drained, batchSize);
+            if (drained.isEmpty()) {
+                partition.park(running);
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
                 continue;
             }
-            ResolvedTask resolved = resolveTask(item);
-            if (resolved == null) {
+            runItems(drained);
+            drained.clear();
+        }
+    }
+
+    private int runItems(List<QueueItem> items) {
+        List<ResolvedTask> resolved = new ArrayList<>(items.size());
+        for (QueueItem item : items) {
+            ResolvedTask task = resolveTask(item);
+            if (task != null) {
+                resolved.add(task);
+            }
+        }
+        return runResolved(resolved);
+    }
+
+    private int runResolved(List<ResolvedTask> resolved) {
+        if (resolved.size() == 1) {
+            return runSingle(resolved.get(0));
+        }
+        int executed = 0;
+        Map<WriteBatcher, List<ResolvedTask>> groups = null;
+        for (ResolvedTask task : resolved) {
+            WriteBatcher batcher = task.task().batcher();
+            if (batcher == null) {
+                executed += runSingle(task);
                 continue;
             }
-            WriteTask task = resolved.task();
-            try {
-                task.action().run();
-                complete(resolved, true, null);
-            } catch (Exception e) {
+            if (groups == null) {
+                groups = new LinkedHashMap<>();
+            }
+            groups.computeIfAbsent(batcher, ignored -> new ArrayList<>()).add(task);
+        }
+        if (groups != null) {
+            for (Map.Entry<WriteBatcher, List<ResolvedTask>> group : groups.entrySet()) {
+                executed += runGroup(group.getKey(), group.getValue());
+            }
+        }
+        return executed;
+    }
+
+    private int runSingle(ResolvedTask resolved) {
+        WriteTask task = resolved.task();
+        RetryContext context = enterRetryContext(resolved.attempt());
+        try {
+            task.action().run();
+            completeIfPresent(resolved.completion(), true, null);
+            return 1;
+        } catch (RetryDeferredException deferred) {
+            scheduleRetry(resolved, deferred);
+            return 0;
+        } catch (Exception e) {
+            logService.error(LogCategory.QUEUE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_TASK_FAILED, task.description()), e);
+            completeIfPresent(resolved.completion(), false, e);
+            return 0;
+        } finally {
+            exitRetryContext(context);
+        }
+    }
+
+    private int runGroup(WriteBatcher batcher, List<ResolvedTask> group) {
+        if (group.size() == 1) {
+            return runSingle(group.get(0));
+        }
+        // One backend call per attempt count, so a fresh write never inherits the retry budget of a failing one.
+        Map<Integer, List<ResolvedTask>> byAttempt = new TreeMap<>();
+        for (ResolvedTask resolved : group) {
+            byAttempt.computeIfAbsent(resolved.attempt(), ignored -> new ArrayList<>()).add(resolved);
+        }
+        int executed = 0;
+        for (List<ResolvedTask> batch : byAttempt.values()) {
+            executed += runBatch(batcher, batch);
+        }
+        return executed;
+    }
+
+    private int runBatch(WriteBatcher batcher, List<ResolvedTask> batch) {
+        if (batch.size() == 1) {
+            return runSingle(batch.get(0));
+        }
+        List<WriteTask> tasks = new ArrayList<>(batch.size());
+        for (ResolvedTask resolved : batch) {
+            tasks.add(resolved.task());
+        }
+        BatchResult result;
+        RetryContext context = enterRetryContext(batch.get(0).attempt());
+        try {
+            result = batcher.executeBatch(tasks);
+        } catch (RetryDeferredException deferred) {
+            for (ResolvedTask resolved : batch) {
+                scheduleRetry(resolved, deferred);
+            }
+            return 0;
+        } catch (Exception e) {
+            logService.error(LogCategory.QUEUE, I18n.get().tr(
+                    LangKeys.LOG_STORAGE_QUEUE_BATCH_FAILED, tasks.get(0).description(), tasks.size()), e);
+            for (ResolvedTask resolved : batch) {
+                completeIfPresent(resolved.completion(), false, e);
+            }
+            return 0;
+        } finally {
+            exitRetryContext(context);
+        }
+        int executed = 0;
+        for (ResolvedTask resolved : batch) {
+            Exception error = result != null ? result.errorFor(resolved.task()) : null;
+            if (error == null) {
+                completeIfPresent(resolved.completion(), true, null);
+                executed++;
+            } else if (error instanceof RetryDeferredException deferred) {
+                scheduleRetry(resolved, deferred);
+            } else {
                 logService.error(LogCategory.QUEUE,
-                        I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_TASK_FAILED, task.description()), e);
-                complete(resolved, false, e);
+                        I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_TASK_FAILED, resolved.task().description()), error);
+                completeIfPresent(resolved.completion(), false, error);
+            }
+        }
+        return executed;
+    }
+
+    private RetryContext enterRetryContext(int attempt) {
+        if (!deferRetries) {
+            return null;
+        }
+        return RetryContext.enter(attempt);
+    }
+
+    private void exitRetryContext(RetryContext context) {
+        if (context == null) {
+            return;
+        }
+        if (context.isExhausted()) {
+            retriesExhausted.incrementAndGet();
+        }
+        context.exit();
+    }
+
+    /**
+     * Parks a failed task until its backoff expires without holding the worker. A keyed retry keeps its slot in
+     * keyedTasks, so a newer write for the same key replaces it and is what runs when the timer fires.
+     */
+    private void scheduleRetry(ResolvedTask resolved, RetryDeferredException deferred) {
+        WriteTask task = resolved.task();
+        int nextAttempt = resolved.attempt() + 1;
+        String key = normalizeKey(task.key());
+        QueueItem item;
+        if (key != null) {
+            KeyedTask retry = new KeyedTask(task, resolved.completion(), task.priority(), nextAttempt);
+            KeyedTask newer = keyedTasks.putIfAbsent(key, retry);
+            if (newer != null) {
+                retriesSuperseded.incrementAndGet();
+                follow(resolved.completion(), newer.completion());
+                return;
+            }
+            item = new QueueItem(key, null, task.priority(), 0);
+        } else {
+            item = new QueueItem(null, task, task.priority(), nextAttempt);
+        }
+        long delay = Math.max(0, deferred.getDelayMs());
+        retriesScheduled.incrementAndGet();
+        retryDelayTotalMs.addAndGet(delay);
+        retryDelayMaxMs.accumulateAndGet(delay, Math::max);
+        retryAttemptMax.accumulateAndGet(nextAttempt, Math::max);
+        if (!deferRetries || delay == 0) {
+            offerRetry(item);
+            return;
+        }
+        PendingRetry pending = new PendingRetry(item);
+        waitingRetries.add(pending);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor).execute(() -> {
+            if (waitingRetries.remove(pending)) {
+                offerRetry(pending.item());
             }
+        });
+    }
+
+    private void offerRetry(QueueItem item) {
+        if (item.key() == null) {
+            offerQueueItem(nextUnkeyedPartition(), item, item.task(), null);
+            return;
+        }
+        KeyedTask keyedTask = keyedTasks.get(item.key());
+        if (keyedTask == null) {
+            return;
+        }
+        OfferResult result = offerQueueItem(partitionFor(item.key()), item, keyedTask.task(), keyedTask.completion());
+        if (result != OfferResult.QUEUED) {
+            keyedTasks.remove(item.key(), keyedTask);
         }
     }
 
+    public RetryStats getRetryStats() {
+        long scheduled = retriesScheduled.get();
+        long averageDelay = scheduled == 0 ? 0 : retryDelayTotalMs.get() / scheduled;
+        return new RetryStats(
+                scheduled,
+                waitingRetries.size(),
+                retriesSuperseded.get(),
+                retriesExhausted.get(),
+                retryAttemptMax.get(),
+                averageDelay,
+                retryDelayMaxMs.get()
+        );
+    }
+
     private ResolvedTask resolveTask(QueueItem item) {
         if (item.key() == null) {
-            return new ResolvedTask(item.task(), null);
+            return new ResolvedTask(item.task(), null, item.attempt());
         }
         KeyedTask keyedTask = keyedTasks.remove(item.key());
         if (keyedTask == null) {
             return null;
         }
-        return new ResolvedTask(keyedTask.task(), keyedTask.completion());
+        return new ResolvedTask(keyedTask.task(), keyedTask.completion(), keyedTask.attempt());
     }
 
     private boolean waitForDrain(Duration timeout) {
         long deadline = System.currentTimeMillis() + timeout.toMillis();
-        while (!(queue.isEmpty() && keyedTasks.isEmpty()) && System.currentTimeMillis() < deadline) {
+        while (!(isQueueEmpty() && keyedTasks.isEmpty()) && System.currentTimeMillis() < deadline) {
             try {
                 Thread.sleep(50);
             } catch (InterruptedException e) {
@@ -211,102 +612,139 @@ public final class AsyncWriteQueue {
                 return false;
             }
         }
-        if (!queue.isEmpty() || !keyedTasks.isEmpty()) {
+        if (!isQueueEmpty() || !keyedTasks.isEmpty()) {
             logService.warn(LogCategory.QUEUE,
-                    I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_SHUTDOWN_TIMEOUT, queue.size()));
+                    I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_SHUTDOWN_TIMEOUT, getQueueSize()));
             return false;
         }
-        waitForWorker(Duration.ofMillis(200));
+        waitForWorkers(Duration.ofMillis(200));
         return true;
     }
 
-    private void waitForWorker(Duration timeout) {
-        if (workerFuture == null) {
-            return;
+    private boolean isQueueEmpty() {
+        for (Partition partition : partitions) {
+            if (!partition.isEmpty()) {
+                return false;
+            }
         }
-        try {
-            workerFuture.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
-        } catch (Exception ignored) {
-            // Worker will end on its own
+        return true;
+    }
+
+    private void waitForWorkers(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        for (Partition partition : partitions) {
+            if (partition.worker == null) {
+                continue;
+            }
+            try {
+                long remaining = Math.max(1, deadline - System.currentTimeMillis());
+                partition.worker.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (Exception ignored) {
+                // Worker will end on its own
+            }
         }
     }
 
     private void cancelWorker() {
-        if (workerFuture != null) {
-            workerFuture.cancel(true);
+        for (Partition partition : partitions) {
+            if (partition.worker != null) {
+                partition.worker.cancel(true);
+            }
         }
     }
 
     private int drainInline() {
         int executed = 0;
-        QueueItem item;
-        while ((item = queue.poll()) != null) {
-            ResolvedTask resolved = resolveTask(item);
-            if (resolved == null) {
-                continue;
-            }
-            WriteTask task = resolved.task();
-            try {
-                task.action().run();
-                complete(resolved, true, null);
-                executed++;
-            } catch (Exception e) {
-                logService.error(LogCategory.QUEUE,
-                        I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_TASK_FAILED, task.description()), e);
-                complete(resolved, false, e);
-            }
+        List<QueueItem> drained = new ArrayList<>();
+        for (Partition partition : partitions) {
+            partition.drainAll(drained);
+            executed += runItems(drained);
+            drained.clear();
         }
         if (!keyedTasks.isEmpty()) {
+            List<ResolvedTask> leftovers = new ArrayList<>(keyedTasks.size());
             for (KeyedTask keyedTask : keyedTasks.values()) {
-                try {
-                    keyedTask.task().action().run();
-                    complete(new ResolvedTask(keyedTask.task(), keyedTask.completion()), true, null);
-                    executed++;
-                } catch (Exception e) {
-                    logService.error(LogCategory.QUEUE,
-                            I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_TASK_FAILED, keyedTask.task().description()), e);
-                    complete(new ResolvedTask(keyedTask.task(), keyedTask.completion()), false, e);
-                }
+                leftovers.add(new ResolvedTask(keyedTask.task(), keyedTask.completion(), keyedTask.attempt()));
             }
             keyedTasks.clear();
+            executed += runResolved(leftovers);
         }
         return executed;
     }
 
-    private OfferResult offerQueueItem(QueueItem item, WriteTask taskForSync, CompletableFuture<Boolean> completion) {
-        if (queue.size() < maxQueueSize && queue.offer(item)) {
+    private Partition partitionFor(String key) {
+        if (partitions.length == 1) {
+            return partitions[0];
+        }
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return partitions[Math.floorMod(hash, partitions.length)];
+    }
+
+    private Partition nextUnkeyedPartition() {
+        if (partitions.length == 1) {
+            return partitions[0];
+        }
+        return partitions[Math.floorMod(unkeyedCursor.getAndIncrement(), partitions.length)];
+    }
+
+    private OfferResult offerQueueItem(Partition partition, QueueItem item, WriteTask taskForSync,
+                                       CompletableFuture<Boolean> completion) {
+        Lane lane = partition.lane(item.priority());
+        if (lane.queue.offer(item)) {
+            partition.wake();
             return OfferResult.QUEUED;
         }
 
-        logService.warn(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_FULL, maxQueueSize));
+        logService.warn(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_FULL,
+                lane.config.priority().getId(), lane.capacity));
 
-        return switch (fullPolicy) {
+        return switch (lane.config.fullPolicy()) {
             case DROP -> {
                 completeIfPresent(completion, false, null);
                 yield OfferResult.DROPPED;
             }
             case SYNC -> runSync(taskForSync, completion);
-            case BLOCK -> attemptBlockingOffer(item, taskForSync, completion);
+            case BLOCK -> attemptBlockingOffer(partition, lane, item, taskForSync, completion);
         };
     }
 
-    private OfferResult attemptBlockingOffer(QueueItem item, WriteTask taskForSync, CompletableFuture<Boolean> completion) {
+    private OfferResult attemptBlockingOffer(Partition partition, Lane lane, QueueItem item, WriteTask taskForSync,
+                                             CompletableFuture<Boolean> completion) {
         if (fullTimeoutMs <= 0) {
             return runSync(taskForSync, completion);
         }
-        try {
-            if (queue.offer(item, fullTimeoutMs, TimeUnit.MILLISECONDS)) {
-                return OfferResult.QUEUED;
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            completeIfPresent(completion, false, e);
+        if (awaitOffer(partition, lane, item)) {
+            return OfferResult.QUEUED;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            completeIfPresent(completion, false, new InterruptedException());
             return OfferResult.DROPPED;
         }
         logService.warn(LogCategory.QUEUE, I18n.get().tr(LangKeys.LOG_STORAGE_QUEUE_FULL_TIMEOUT, fullTimeoutMs));
         return runSync(taskForSync, completion);
     }
 
+    /**
+     * Retries the offer with backoff until {@code fullTimeoutMs} passes or the caller is interrupted.
+     */
+    private boolean awaitOffer(Partition partition, Lane lane, QueueItem item) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fullTimeoutMs);
+        long backoffNanos = 50_000L;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(Math.min(backoffNanos, Math.max(1L, deadline - System.nanoTime())));
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            if (lane.queue.offer(item)) {
+                partition.wake();
+                return true;
+            }
+            backoffNanos = Math.min(backoffNanos * 2, 1_000_000L);
+        }
+        return false;
+    }
+
     private OfferResult runSync(WriteTask taskForSync, CompletableFuture<Boolean> completion) {
         if (taskForSync == null) {
             completeIfPresent(completion, false, null);
@@ -333,21 +771,24 @@ public final class AsyncWriteQueue {
         }
     }
 
-    private void completeIfPresent(CompletableFuture<Boolean> completion, boolean success, Exception error) {
-        if (completion == null) {
+    private void follow(CompletableFuture<Boolean> superseded, CompletableFuture<Boolean> newer) {
+        if (superseded == null) {
             return;
         }
-        if (success) {
-            completion.complete(true);
-        } else if (error != null) {
-            completion.completeExceptionally(error);
-        } else {
-            completion.complete(false);
+        if (newer == null) {
+            superseded.complete(false);
+            return;
         }
+        newer.whenComplete((result, error) -> {
+            if (error != null) {
+                superseded.completeExceptionally(error);
+            } else {
+                superseded.complete(result);
+            }
+        });
     }
 
-    private void complete(ResolvedTask resolved, boolean success, Exception error) {
-        CompletableFuture<Boolean> completion = resolved.completion();
+    private void completeIfPresent(CompletableFuture<Boolean> completion, boolean success, Exception error) {
         if (completion == null) {
             return;
         }
@@ -368,13 +809,156 @@ public final class AsyncWriteQueue {
         return trimmed.isEmpty() ? null : trimmed;
     }
 
-    private record QueueItem(String key, WriteTask task) {
+    private static final class Partition {
+        private final Lane[] lanes;
+        // Guards the single-consumer side of the lanes; only contended during force drain.
+        private final ReentrantLock consumerLock = new ReentrantLock();
+        private volatile Future<?> worker;
+        private volatile Thread workerThread;
+        private volatile boolean parked;
+        // Deficit round-robin state, only touched by the partition worker.
+        private int cursor;
+        private int credit;
+
+        private Partition(List<QueueLaneConfig> laneConfigs, int partitionCount) {
+            this.lanes = new Lane[laneConfigs.size()];
+            for (int i = 0; i < lanes.length; i++) {
+                QueueLaneConfig config = laneConfigs.get(i);
+                int capacity = Math.max(1, (config.maxSize() + partitionCount - 1) / partitionCount);
+                lanes[i] = new Lane(config, capacity);
+            }
+        }
+
+        private Lane lane(WritePriority priority) {
+            for (Lane lane : lanes) {
+                if (lane.config.priority() == priority) {
+                    return lane;
+                }
+            }
+            return lanes[lanes.length - 1];
+        }
+
+        private void wake() {
+            if (parked) {
+                Thread thread = workerThread;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
+
+        private void park(AtomicBoolean running) {
+            // Publish the parked flag before the last emptiness check so a concurrent offer either
+            // is seen here or sees the flag and unparks us.
+            parked = true;
+            try {
+                if (isEmpty() && running.get()) {
+                    LockSupport.park(this);
+                }
+            } finally {
+                parked = false;
+            }
+        }
+
+        private void drainAll(List<QueueItem> out) {
+            consumerLock.lock();
+            try {
+                for (Lane lane : lanes) {
+                    lane.queue.drainTo(out, Integer.MAX_VALUE);
+                }
+            } finally {
+                consumerLock.unlock();
+            }
+        }
+
+        /**
+         * Serves lanes with deficit round-robin: each visit may take up to the lane weight before
+         * moving on, so BULK keeps a share even when CRITICAL never empties.
+         */
+        private void drainWeighted(List<QueueItem> out, int limit) {
+            consumerLock.lock();
+            try {
+                drainWeightedLocked(out, limit);
+            } finally {
+                consumerLock.unlock();
+            }
+        }
+
+        private void drainWeightedLocked(List<QueueItem> out, int limit) {
+            int emptyVisits = 0;
+            while (out.size() < limit && emptyVisits < lanes.length) {
+                Lane lane = lanes[cursor];
+                if (credit <= 0) {
+                    credit = lane.config.weight();
+                }
+                int taken = lane.queue.drainTo(out, Math.min(credit, limit - out.size()));
+                if (taken == 0) {
+                    emptyVisits++;
+                    advance();
+                    continue;
+                }
+                emptyVisits = 0;
+                credit -= taken;
+                if (credit <= 0) {
+                    advance();
+                }
+            }
+        }
+
+        private void advance() {
+            credit = 0;
+            cursor = (cursor + 1) % lanes.length;
+        }
+
+        private int size() {
+            int size = 0;
+            for (Lane lane : lanes) {
+                size += lane.queue.size();
+            }
+            return size;
+        }
+
+        private boolean isEmpty() {
+            for (Lane lane : lanes) {
+                if (!lane.queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Lane {
+        private final QueueLaneConfig config;
+        private final int capacity;
+        private final MpscRingBuffer<QueueItem> queue;
+
+        private Lane(QueueLaneConfig config, int capacity) {
+            this.config = config;
+            this.capacity = capacity;
+            this.queue = new MpscRingBuffer<>(capacity);
+        }
     }
 
-    private record KeyedTask(WriteTask task, CompletableFuture<Boolean> completion) {
+    private record QueueItem(String key, WriteTask task, WritePriority priority, int attempt) {
     }
 
-    private record ResolvedTask(WriteTask task, CompletableFuture<Boolean> completion) {
+    private record KeyedTask(WriteTask task, CompletableFuture<Boolean> completion, WritePriority queuedIn, int attempt) {
+    }
+
+    private record ResolvedTask(WriteTask task, CompletableFuture<Boolean> completion, int attempt) {
+    }
+
+    private static final class PendingRetry {
+        private final QueueItem item;
+
+        private PendingRetry(QueueItem item) {
+            this.item = item;
+        }
+
+        private QueueItem item() {
+            return item;
+        }
     }
 
     private enum OfferResult {
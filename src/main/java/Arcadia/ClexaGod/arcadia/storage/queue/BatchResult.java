@@ -0,0 +1,34 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+import Arcadia.ClexaGod.arcadia.storage.retry.RetryDeferredException;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Per-task outcome of a {@link WriteBatcher} call. Tasks without a reported error were applied; a
+ * {@link RetryDeferredException} marks a task the queue should retry later.
+ */
+public final class BatchResult {
+
+    private final Map<WriteTask, Exception> errors = new IdentityHashMap<>();
+
+    public static BatchResult success() {
+        return new BatchResult();
+    }
+
+    public BatchResult report(WriteTask task, Exception error) {
+        if (task != null && error != null) {
+            errors.put(task, error);
+        }
+        return this;
+    }
+
+    public Exception errorFor(WriteTask task) {
+        return errors.get(task);
+    }
+
+    public boolean isSuccess() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer single-consumer ring buffer. Slots are preallocated and guarded by a
+ * per-slot sequence, so offer never allocates or locks and capacity is exact.
+ * Only one thread may call {@link #poll()} or {@link #drainTo(Collection, int)} at a time.
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    // A single slot cannot tell "empty for the next lap" from "full", so one-element buffers get a spare slot.
+    private final int slotCount;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slotCount = Math.max(2, capacity);
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.sequences = new AtomicLongArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        long position = tail.get();
+        while (true) {
+            int index = index(position);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (slotCount > capacity && position - head >= capacity) {
+                    return false;
+                }
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    E poll() {
+        long position = head;
+        int index = index(position);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, position + slotCount);
+        head = position + 1;
+        return element;
+    }
+
+    int drainTo(Collection<? super E> target, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        if (size <= 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity);
+    }
+
+    boolean isEmpty() {
+        return sequences.get(index(head)) != head + 1;
+    }
+
+    private int index(long position) {
+        return (int) (position % slotCount);
+    }
+}
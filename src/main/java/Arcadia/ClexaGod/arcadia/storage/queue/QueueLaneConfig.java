@@ -0,0 +1,34 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record QueueLaneConfig(WritePriority priority, int maxSize, QueueFullPolicy fullPolicy, int weight) {
+
+    public QueueLaneConfig {
+        if (priority == null) {
+            priority = WritePriority.NORMAL;
+        }
+        if (maxSize <= 0) {
+            maxSize = 5000;
+        }
+        if (fullPolicy == null) {
+            fullPolicy = QueueFullPolicy.BLOCK;
+        }
+        if (weight <= 0) {
+            weight = priority.getDefaultWeight();
+        }
+    }
+
+    /**
+     * Every lane gets the global capacity; CRITICAL always blocks, the others follow the global on-full policy.
+     */
+    public static List<QueueLaneConfig> defaults(int maxSize, QueueFullPolicy fullPolicy) {
+        List<QueueLaneConfig> lanes = new ArrayList<>(WritePriority.values().length);
+        for (WritePriority priority : WritePriority.values()) {
+            QueueFullPolicy lanePolicy = priority == WritePriority.CRITICAL ? QueueFullPolicy.BLOCK : fullPolicy;
+            lanes.add(new QueueLaneConfig(priority, maxSize, lanePolicy, priority.getDefaultWeight()));
+        }
+        return lanes;
+    }
+}
@@ -0,0 +1,5 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+public record RetryStats(long scheduled, int waiting, long superseded, long exhausted, int maxAttempt,
+                         long averageDelayMs, long maxDelayMs) {
+}
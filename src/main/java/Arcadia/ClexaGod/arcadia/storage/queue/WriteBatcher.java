@@ -0,0 +1,15 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+import java.util.List;
+
+/**
+ * Runs several queued tasks that share this batcher as one backend call.
+ * Tasks are grouped by batcher identity, so one instance per repository and operation is expected.
+ * All tasks of a call share the same retry attempt. Throwing means none of the tasks were applied; partial
+ * outcomes are reported through the returned {@link BatchResult}.
+ */
+@FunctionalInterface
+public interface WriteBatcher {
+
+    BatchResult executeBatch(List<WriteTask> tasks);
+}
@@ -0,0 +1,42 @@
+package Arcadia.ClexaGod.arcadia.storage.queue;
+
+import java.util.Locale;
+
+public enum WritePriority {
+    CRITICAL("critical", 8),
+    NORMAL("normal", 4),
+    BULK("bulk", 1);
+
+    private final String id;
+    private final int defaultWeight;
+
+    WritePriority(String id, int defaultWeight) {
+        this.id = id;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public boolean isHigherThan(WritePriority other) {
+        return other != null && ordinal() < other.ordinal();
+    }
+
+    public static WritePriority from(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String value = raw.trim().toLowerCase(Locale.ROOT);
+        for (WritePriority priority : values()) {
+            if (priority.id.equals(value)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+}
@@ -1,4 +1,34 @@
 package Arcadia.ClexaGod.arcadia.storage.queue;
 
-public record WriteTask(String key, String description, Runnable action) {
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalEntry;
+
+public record WriteTask(String key, String description, Runnable action, WriteBatcher batcher, Object payload,
+                        WritePriority priority, JournalEntry journal) {
+
+    public WriteTask {
+        if (priority == null) {
+            priority = WritePriority.NORMAL;
+        }
+    }
+
+    public WriteTask(String key, String description, Runnable action) {
+        this(key, description, action, null, null, WritePriority.NORMAL, null);
+    }
+
+    public WriteTask(String key, String description, Runnable action, WriteBatcher batcher, Object payload) {
+        this(key, description, action, batcher, payload, WritePriority.NORMAL, null);
+    }
+
+    public WriteTask(String key, String description, Runnable action, WriteBatcher batcher, Object payload,
+                     WritePriority priority) {
+        this(key, description, action, batcher, payload, priority, null);
+    }
+
+    public WriteTask withPriority(WritePriority priority) {
+        return new WriteTask(key, description, action, batcher, payload, priority, journal);
+    }
+
+    public WriteTask withJournal(JournalEntry journal) {
+        return new WriteTask(key, description, action, batcher, payload, priority, journal);
+    }
 }
@@ -0,0 +1,22 @@
+package Arcadia.ClexaGod.arcadia.storage.repository;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown by {@code saveAll}/{@code deleteAll} when part of a batch was not written. Ids missing from
+ * {@link #getFailures()} were applied; a {@code RetryDeferredException} cause means the id can be retried later.
+ */
+@Getter
+public final class BatchWriteException extends RuntimeException {
+
+    private final Map<String, Exception> failures;
+
+    public BatchWriteException(String repository, Map<String, Exception> failures) {
+        super(repository + ": " + failures.size() + " record(s) not written");
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+}
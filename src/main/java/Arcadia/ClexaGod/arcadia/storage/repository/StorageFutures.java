@@ -0,0 +1,60 @@
+package Arcadia.ClexaGod.arcadia.storage.repository;
+
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+import org.allaymc.api.scheduler.Scheduler;
+import org.allaymc.api.scheduler.TaskCreator;
+import org.allaymc.api.server.Server;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Executors for the async repository API: storage I/O runs on the virtual thread pool and results can be
+ * handed back to a world scheduler before touching world state.
+ */
+public final class StorageFutures {
+
+    private StorageFutures() {
+    }
+
+    public static Executor io() {
+        return Server.getInstance().getVirtualThreadPool();
+    }
+
+    public static Executor compute() {
+        return Server.getInstance().getComputeThreadPool();
+    }
+
+    public static Executor on(Scheduler scheduler, TaskCreator taskCreator) {
+        Objects.requireNonNull(scheduler, "scheduler");
+        Objects.requireNonNull(taskCreator, "taskCreator");
+        return runnable -> scheduler.runLater(taskCreator, runnable);
+    }
+
+    public static <T extends StorageRecord> CompletableFuture<Optional<T>> loadAsync(
+            StorageRepository<T> repository, String id, Scheduler scheduler, TaskCreator taskCreator) {
+        return resumeOn(repository.loadAsync(id), scheduler, taskCreator);
+    }
+
+    public static <T extends StorageRecord> CompletableFuture<Boolean> saveAsync(
+            StorageRepository<T> repository, T record, Scheduler scheduler, TaskCreator taskCreator) {
+        return resumeOn(repository.saveAsync(record), scheduler, taskCreator);
+    }
+
+    public static CompletableFuture<Boolean> deleteAsync(
+            StorageRepository<?> repository, String id, Scheduler scheduler, TaskCreator taskCreator) {
+        return resumeOn(repository.deleteAsync(id), scheduler, taskCreator);
+    }
+
+    /**
+     * Returns a future with the same outcome whose dependent stages run on the given scheduler.
+     */
+    public static <T> CompletableFuture<T> resumeOn(CompletableFuture<T> future, Scheduler scheduler,
+                                                    TaskCreator taskCreator) {
+        Objects.requireNonNull(future, "future");
+        return future.whenCompleteAsync((ignored, error) -> {
+        }, on(scheduler, taskCreator));
+    }
+}
@@ -1,12 +1,21 @@
 package Arcadia.ClexaGod.arcadia.storage.repository;
 
+import Arcadia.ClexaGod.arcadia.storage.index.IndexQuery;
+import Arcadia.ClexaGod.arcadia.storage.index.RecordIndex;
 import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface StorageRepository<T extends StorageRecord> {
 
@@ -14,10 +23,91 @@ public interface StorageRepository<T extends StorageRecord> {
 
     Optional<T> load(String id);
 
+    /**
+     * Multi-get: the records found, keyed by their trimmed id. Missing, null and blank ids are left out.
+     */
+    default Map<String, T> loadMany(Collection<String> ids) {
+        Map<String, T> records = new LinkedHashMap<>();
+        if (ids == null) {
+            return records;
+        }
+        for (String id : ids) {
+            String key = id != null ? id.trim() : "";
+            if (key.isEmpty() || records.containsKey(key)) {
+                continue;
+            }
+            load(key).ifPresent(record -> records.put(key, record));
+        }
+        return records;
+    }
+
     void save(T record);
 
     void delete(String id);
 
+    /**
+     * Writes every record; when some fail the rest are still written and a {@link BatchWriteException} names the
+     * failed ids.
+     */
+    default void saveAll(Collection<T> records) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (T record : records) {
+            try {
+                save(record);
+            } catch (Exception e) {
+                failures.put(record != null ? record.getId() : null, e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new BatchWriteException(getName(), failures);
+        }
+    }
+
+    default void deleteAll(Collection<String> ids) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (String id : ids) {
+            try {
+                delete(id);
+            } catch (Exception e) {
+                failures.put(id, e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new BatchWriteException(getName(), failures);
+        }
+    }
+
+    /**
+     * Loads off the calling thread. Completes exceptionally when the backend fails.
+     */
+    default CompletableFuture<Optional<T>> loadAsync(String id) {
+        return CompletableFuture.supplyAsync(() -> load(id), StorageFutures.io());
+    }
+
+    /**
+     * Completes with true once the record has been written, false when the write was rejected and exceptionally
+     * when the backend write failed.
+     */
+    default CompletableFuture<Boolean> saveAsync(T record) {
+        if (record == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            save(record);
+            return true;
+        }, StorageFutures.io());
+    }
+
+    default CompletableFuture<Boolean> deleteAsync(String id) {
+        if (id == null || id.isBlank()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            delete(id);
+            return true;
+        }, StorageFutures.io());
+    }
+
     boolean exists(String id);
 
     List<T> loadAll();
@@ -33,22 +123,73 @@ public interface StorageRepository<T extends StorageRecord> {
         return new ArrayList<>(all.subList(0, limit));
     }
 
+    /**
+     * Lazily iterates every record. The stream holds backend resources (open directories, a connection) until it is
+     * closed, so callers use try-with-resources.
+     */
+    default Stream<T> streamAll() {
+        return loadAll().stream();
+    }
+
+    /**
+     * Stream for bulk reads (warm-up, migration). Backends that can read records concurrently keep up to
+     * {@code parallelism} reads in flight; with {@code ordered} false records arrive in completion order. Closing the
+     * stream stops outstanding work.
+     */
+    default Stream<T> bulkStream(int parallelism, boolean ordered) {
+        return streamAll();
+    }
+
+    /**
+     * Keyset pagination: up to {@code limit} records whose id sorts after {@code afterId} (null starts from the
+     * beginning), in id order. Pass the id of the last record of a page to get the next one.
+     */
+    default List<T> loadPage(String afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        TreeMap<String, T> page = new TreeMap<>();
+        try (Stream<T> stream = streamAll()) {
+            stream.forEach(record -> {
+                String id = record != null ? record.getId() : null;
+                if (id == null || (afterId != null && id.compareTo(afterId) <= 0)) {
+                    return;
+                }
+                page.put(id, record);
+                if (page.size() > limit) {
+                    page.pollLastEntry();
+                }
+            });
+        }
+        return new ArrayList<>(page.values());
+    }
+
     long count();
 
+    /**
+     * Registers a secondary index. Backends without index support keep answering {@link #findByIndex} by scanning.
+     */
+    default void registerIndex(RecordIndex<T> index) {
+    }
+
+    /**
+     * Records matching an indexed equality or range query, up to {@code limit}.
+     */
+    default List<T> findByIndex(IndexQuery<T> query, int limit) {
+        Objects.requireNonNull(query, "query");
+        return findByFilter(query::matches, limit);
+    }
+
     default List<T> findByFilter(Predicate<T> filter, int limit) {
         Objects.requireNonNull(filter, "filter");
         if (limit <= 0) {
             return List.of();
         }
-        List<T> results = new ArrayList<>();
-        for (T record : loadAll(limit)) {
-            if (filter.test(record)) {
-                results.add(record);
-                if (results.size() >= limit) {
-                    break;
-                }
-            }
+        try (Stream<T> stream = streamAll()) {
+            return stream.filter(Objects::nonNull)
+                    .filter(filter)
+                    .limit(limit)
+                    .collect(Collectors.toCollection(ArrayList::new));
         }
-        return results;
     }
 }
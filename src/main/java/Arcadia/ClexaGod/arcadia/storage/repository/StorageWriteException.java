@@ -0,0 +1,12 @@
+package Arcadia.ClexaGod.arcadia.storage.repository;
+
+/**
+ * Thrown by a backend when a write or delete still failed after its retries, so callers and the write queue see
+ * the failure instead of a silent return.
+ */
+public final class StorageWriteException extends RuntimeException {
+
+    public StorageWriteException(String operation, Throwable cause) {
+        super(operation + " failed", cause);
+    }
+}
@@ -0,0 +1,125 @@
+package Arcadia.ClexaGod.arcadia.storage.repository.json;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Bulk read pipeline: file reads fan out onto the I/O executor (virtual threads) and decoding runs on the compute
+ * executor, with at most {@code parallelism} records in flight. Ordered mode yields records in source order; otherwise
+ * whichever finishes first comes next. Both stages return null to skip a source and handle their own failures.
+ */
+final class JsonBulkLoader<S, T> implements Iterator<T>, Closeable {
+
+    private final Iterator<S> sources;
+    private final int parallelism;
+    private final boolean ordered;
+    private final Function<S, String> read;
+    private final BiFunction<S, String, T> decode;
+    private final Executor io;
+    private final Executor compute;
+    private final Deque<CompletableFuture<T>> window = new ArrayDeque<>();
+    private T next;
+    private boolean closed;
+
+    JsonBulkLoader(Iterator<S> sources, int parallelism, boolean ordered, Function<S, String> read,
+                   BiFunction<S, String, T> decode, Executor io, Executor compute) {
+        this.sources = sources;
+        this.parallelism = Math.max(1, parallelism);
+        this.ordered = ordered;
+        this.read = read;
+        this.decode = decode;
+        this.io = orCaller(io);
+        this.compute = orCaller(compute);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !closed) {
+            fill();
+            if (window.isEmpty()) {
+                return false;
+            }
+            next = take();
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Stops submitting work; reads already running finish in the background and are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        next = null;
+        window.forEach(future -> future.cancel(false));
+        window.clear();
+    }
+
+    private void fill() {
+        while (window.size() < parallelism && sources.hasNext()) {
+            S source = sources.next();
+            window.addLast(CompletableFuture.supplyAsync(() -> read.apply(source), io)
+                    .thenApplyAsync(json -> json != null ? decode.apply(source, json) : null, compute));
+        }
+    }
+
+    private T take() {
+        CompletableFuture<T> future = ordered ? window.pollFirst() : pollCompleted();
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private CompletableFuture<T> pollCompleted() {
+        CompletableFuture<T> done = removeFirstDone();
+        if (done != null) {
+            return done;
+        }
+        CompletableFuture.anyOf(window.toArray(CompletableFuture[]::new)).exceptionally(ignored -> null).join();
+        return removeFirstDone();
+    }
+
+    private CompletableFuture<T> removeFirstDone() {
+        Iterator<CompletableFuture<T>> iterator = window.iterator();
+        while (iterator.hasNext()) {
+            CompletableFuture<T> future = iterator.next();
+            if (future.isDone()) {
+                iterator.remove();
+                return future;
+            }
+        }
+        return null;
+    }
+
+    // A saturated or shut down pool degrades to running the stage on the calling thread.
+    private static Executor orCaller(Executor executor) {
+        return task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package Arcadia.ClexaGod.arcadia.storage.repository.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Depth-first walk over the .json files of a repository that keeps at most one open {@link DirectoryStream} per
+ * level, so listing a large shard tree never holds more than the current path in memory.
+ */
+final class JsonFileIterator implements Iterator<Path>, Closeable {
+
+    private final int maxDepth;
+    private final Deque<Level> levels = new ArrayDeque<>();
+    private Path next;
+
+    JsonFileIterator(Path root, int maxDepth) throws IOException {
+        this.maxDepth = Math.max(1, maxDepth);
+        if (Files.isDirectory(root)) {
+            levels.push(new Level(Files.newDirectoryStream(root)));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !levels.isEmpty()) {
+            Level level = levels.peek();
+            Path candidate;
+            try {
+                if (!level.entries.hasNext()) {
+                    levels.pop().stream.close();
+                    continue;
+                }
+                candidate = level.entries.next();
+            } catch (DirectoryIteratorException e) {
+                close();
+                throw new UncheckedIOException(e.getCause());
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (Files.isDirectory(candidate)) {
+                if (levels.size() < maxDepth) {
+                    try {
+                        levels.push(new Level(Files.newDirectoryStream(candidate)));
+                    } catch (IOException e) {
+                        close();
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            } else if (candidate.getFileName().toString().endsWith(".json")) {
+                next = candidate;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Path next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Path path = next;
+        next = null;
+        return path;
+    }
+
+    @Override
+    public void close() {
+        while (!levels.isEmpty()) {
+            try {
+                levels.pop().stream.close();
+            } catch (IOException ignored) {
+                // Nothing left to release for this level
+            }
+        }
+    }
+
+    private static final class Level {
+        private final DirectoryStream<Path> stream;
+        private final Iterator<Path> entries;
+
+        private Level(DirectoryStream<Path> stream) {
+            this.stream = stream;
+            this.entries = stream.iterator();
+        }
+    }
+}
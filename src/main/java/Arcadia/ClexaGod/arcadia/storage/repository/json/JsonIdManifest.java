@@ -0,0 +1,347 @@
+package Arcadia.ClexaGod.arcadia.storage.repository.json;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory id index of a JSON repository, persisted as a {@link JsonSidecarLog} in {@code .manifest}. Holds every
+ * record id with its file path (relative to the repository root) and size, so listing, counting and paging never
+ * touch the directory tree. A missing or corrupt manifest, or one whose sampled entries no longer exist on disk, is
+ * rebuilt by a single scan. While open, each process keeps a {@code .manifest.open.<pid>} marker on disk and removes
+ * it on a clean {@link #close()}; a marker whose process is gone (or any marker, when this process owns the folder
+ * alone) means that run stopped uncleanly and may have written files whose manifest line was lost, so the manifest
+ * is rebuilt. With a shared data folder, reads first pick up the lines other processes appended.
+ */
+final class JsonIdManifest {
+
+    static final String FILE_NAME = ".manifest";
+    static final String OPEN_MARKER = ".manifest.open";
+    private static final int VERIFY_SAMPLES = 32;
+
+    private final Path rootPath;
+    private final JsonSidecarLog log;
+    private final Path marker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Supplier<Map<String, Entry>> scanner;
+    private volatile boolean open;
+    private volatile boolean unclean;
+
+    JsonIdManifest(Path rootPath, Supplier<Map<String, Entry>> scanner) {
+        this.rootPath = rootPath;
+        this.log = new JsonSidecarLog(rootPath.resolve(FILE_NAME), new Lines());
+        this.marker = rootPath.resolve(OPEN_MARKER + "." + ProcessHandle.current().pid());
+        this.scanner = scanner;
+    }
+
+    /**
+     * @return true when the manifest was rebuilt from a scan
+     */
+    boolean open() throws IOException {
+        if (open) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (open) {
+                return false;
+            }
+            List<Path> staleMarkers = new ArrayList<>();
+            unclean = findUncleanMarkers(staleMarkers);
+            if (!unclean && log.replay() && verifySample()) {
+                markOpen();
+                return false;
+            }
+            rebuild();
+            // Only once the rebuilt manifest is on disk, so a crash during the rebuild still counts as unclean
+            for (Path stale : staleMarkers) {
+                Files.deleteIfExists(stale);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the manifest and removes this process's open marker, so the next open trusts the persisted manifest.
+     */
+    void close() throws IOException {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            log.close();
+            Files.deleteIfExists(marker);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * True when the last open found the marker of a run that did not stop cleanly. Other sidecars written by that
+     * run (indexes) may have lost lines as well.
+     */
+    boolean wasUnclean() {
+        return unclean;
+    }
+
+    int size() {
+        refresh();
+        return entries.size();
+    }
+
+    boolean contains(String id) {
+        refresh();
+        return entries.containsKey(id);
+    }
+
+    Entry get(String id) {
+        refresh();
+        return entries.get(id);
+    }
+
+    /**
+     * Ids in order, lazily; concurrent changes may or may not be seen.
+     */
+    Iterable<Map.Entry<String, Entry>> entries() {
+        refresh();
+        return entries.entrySet();
+    }
+
+    /**
+     * Up to {@code limit} entries whose id sorts after {@code afterId}; null starts from the first id.
+     */
+    List<Map.Entry<String, Entry>> page(String afterId, int limit) {
+        refresh();
+        NavigableMap<String, Entry> tail = afterId == null ? entries : entries.tailMap(afterId, false);
+        List<Map.Entry<String, Entry>> page = new ArrayList<>(Math.min(limit, 256));
+        for (Map.Entry<String, Entry> entry : tail.entrySet()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(entry);
+        }
+        return page;
+    }
+
+    void put(String id, Path path, long size) throws IOException {
+        Entry entry = entryFor(path, size);
+        lock.lock();
+        try {
+            log.update(() -> entry.equals(entries.put(id, entry)) ? List.of() : List.<String[]>of(row(id, entry)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records several saved files with one append.
+     */
+    void putAll(Map<String, Entry> changes) throws IOException {
+        lock.lock();
+        try {
+            log.update(() -> {
+                List<String[]> rows = new ArrayList<>(changes.size());
+                for (Map.Entry<String, Entry> change : changes.entrySet()) {
+                    if (!change.getValue().equals(entries.put(change.getKey(), change.getValue()))) {
+                        rows.add(row(change.getKey(), change.getValue()));
+                    }
+                }
+                return rows;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(String id) throws IOException {
+        lock.lock();
+        try {
+            log.update(() -> entries.remove(id) == null ? List.of() : List.<String[]>of(new String[]{"D", id}));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the appended lines to disk, sharing one force between concurrent callers. Runs outside the manifest
+     * lock, so appends continue meanwhile.
+     */
+    void force() throws IOException {
+        log.force();
+    }
+
+    /**
+     * Drops the persisted manifest after a failed update; the next change writes the whole state again, and an
+     * open without one rebuilds it.
+     */
+    void invalidate() {
+        lock.lock();
+        try {
+            log.delete();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Entry entryFor(Path path, long size) {
+        return new Entry(relativize(path), size);
+    }
+
+    Path resolve(Entry entry) {
+        return rootPath.resolve(entry.path());
+    }
+
+    /**
+     * Applies the lines other processes appended since the last read; an unreadable shared log is rebuilt.
+     */
+    private void refresh() {
+        if (!open || !log.isStale()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!log.refresh()) {
+                rebuild();
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // Keeps serving the current state; the next read or change tries again
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuild() throws IOException {
+        log.skipExisting();
+        entries.clear();
+        entries.putAll(scanner.get());
+        // Usable from memory even if persisting the rebuilt manifest fails
+        markOpen();
+        log.rewrite();
+    }
+
+    /**
+     * Collects the open markers of runs that ended without {@link #close()}. This process's own marker can only be
+     * left over from an earlier run with the same pid; markers of other live processes count only when this
+     * process is supposed to own the folder alone.
+     */
+    private boolean findUncleanMarkers(List<Path> stale) throws IOException {
+        if (!Files.isDirectory(rootPath)) {
+            return false;
+        }
+        boolean found = false;
+        boolean shared = JsonSidecarLog.shared();
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(rootPath, OPEN_MARKER + "*")) {
+            for (Path existing : markers) {
+                if (existing.equals(marker)) {
+                    found = true;
+                } else if (!shared || !isLive(existing)) {
+                    found = true;
+                    stale.add(existing);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean isLive(Path marker) {
+        String suffix = marker.getFileName().toString().substring(OPEN_MARKER.length());
+        if (!suffix.startsWith(".")) {
+            return false;
+        }
+        try {
+            long pid = Long.parseLong(suffix.substring(1));
+            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void markOpen() throws IOException {
+        open = true;
+        if (!Files.exists(marker)) {
+            Files.createDirectories(rootPath);
+            Files.writeString(marker, "");
+        }
+    }
+
+    private boolean verifySample() {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        List<Entry> values = new ArrayList<>(entries.values());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < Math.min(VERIFY_SAMPLES, values.size()); i++) {
+            Entry entry = values.get(random.nextInt(values.size()));
+            if (!Files.exists(resolve(entry))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] row(String id, Entry entry) {
+        return new String[]{"P", id, entry.path(), Long.toString(entry.size())};
+    }
+
+    private String relativize(Path path) {
+        return rootPath.relativize(path).toString().replace('\\', '/');
+    }
+
+    private final class Lines implements JsonSidecarLog.Handler {
+
+        @Override
+        public boolean apply(String[] fields) {
+            if (fields[0].equals("P") && fields.length == 4) {
+                try {
+                    entries.put(fields[1], new Entry(fields[2], Long.parseLong(fields[3])));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                return true;
+            }
+            if (fields[0].equals("D") && fields.length == 2) {
+                entries.remove(fields[1]);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void reset() {
+            entries.clear();
+        }
+
+        @Override
+        public List<String[]> snapshot() {
+            List<String[]> rows = new ArrayList<>(entries.size());
+            entries.forEach((id, entry) -> rows.add(row(id, entry)));
+            return rows;
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+    }
+
+    record Entry(String path, long size) {
+    }
+}
@@ -0,0 +1,307 @@
+package Arcadia.ClexaGod.arcadia.storage.repository.json;
+
+import Arcadia.ClexaGod.arcadia.storage.index.IndexQuery;
+import Arcadia.ClexaGod.arcadia.storage.index.RecordIndex;
+import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Secondary indexes of a JSON repository. Each index lives in memory and in a {@link JsonSidecarLog} under
+ * {@code .index/}; with a shared data folder, lookups first pick up the lines other processes appended.
+ */
+final class JsonIndexStore<T extends StorageRecord> {
+
+    static final String DIRECTORY = ".index";
+
+    private final Path directory;
+    private final Map<String, SidecarIndex> indexes = new ConcurrentHashMap<>();
+
+    JsonIndexStore(Path rootPath) {
+        this.directory = rootPath.resolve(DIRECTORY);
+    }
+
+    boolean isEmpty() {
+        return indexes.isEmpty();
+    }
+
+    /**
+     * Loads the sidecar of the index, or rebuilds it from a scan when it is missing, unreadable, does not cover
+     * {@code expectedRecords}, or was written by a run that stopped uncleanly ({@code unclean}), since a crash can
+     * lose an index line while the record file itself was written.
+     *
+     * @return true when the index had to be rebuilt
+     */
+    boolean register(RecordIndex<T> index, long expectedRecords, boolean unclean, Stream<T> scan) throws IOException {
+        SidecarIndex sidecar = new SidecarIndex(index, directory.resolve(index.name() + ".idx"));
+        boolean rebuilt = false;
+        try (scan) {
+            if (unclean || !sidecar.load() || sidecar.size() != expectedRecords) {
+                sidecar.rebuild(scan);
+                rebuilt = true;
+            }
+        }
+        indexes.put(index.name(), sidecar);
+        return rebuilt;
+    }
+
+    /**
+     * @return names of indexes that failed to record the change; they are dropped and must be registered again
+     */
+    List<String> onSave(T record) {
+        List<String> failed = new ArrayList<>();
+        for (SidecarIndex sidecar : indexes.values()) {
+            try {
+                sidecar.put(record.getId(), sidecar.definition.valueOf(record));
+            } catch (IOException e) {
+                failed.add(drop(sidecar));
+            }
+        }
+        return failed;
+    }
+
+    List<String> onDelete(String id) {
+        List<String> failed = new ArrayList<>();
+        for (SidecarIndex sidecar : indexes.values()) {
+            try {
+                sidecar.remove(id);
+            } catch (IOException e) {
+                failed.add(drop(sidecar));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return matching ids in index order, or null when the index is not registered here (or had to be dropped
+     * because another process left its sidecar unreadable)
+     */
+    List<String> lookup(IndexQuery<T> query, int limit) {
+        SidecarIndex sidecar = indexes.get(query.getIndex().name());
+        if (sidecar == null) {
+            return null;
+        }
+        if (!sidecar.refresh()) {
+            drop(sidecar);
+            return null;
+        }
+        return sidecar.lookup(query, limit);
+    }
+
+    /**
+     * Closes the append channels of every sidecar; they reopen on the next change.
+     */
+    void close() {
+        for (SidecarIndex sidecar : indexes.values()) {
+            sidecar.lock.lock();
+            try {
+                sidecar.log.close();
+            } catch (IOException ignored) {
+                // A lost index line is caught by the rebuild after an unclean stop
+            } finally {
+                sidecar.lock.unlock();
+            }
+        }
+    }
+
+    private String drop(SidecarIndex sidecar) {
+        indexes.remove(sidecar.definition.name(), sidecar);
+        sidecar.log.delete();
+        return sidecar.definition.name();
+    }
+
+    private final class SidecarIndex {
+        private final RecordIndex<T> definition;
+        private final JsonSidecarLog log;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeMap<String, Set<String>> idsByValue = new TreeMap<>();
+        // Every indexed record id, with null for records whose field is empty.
+        private final Map<String, String> valueById = new HashMap<>();
+
+        private SidecarIndex(RecordIndex<T> definition, Path file) {
+            this.definition = definition;
+            this.log = new JsonSidecarLog(file, new Lines());
+        }
+
+        private int size() {
+            return valueById.size();
+        }
+
+        private boolean load() {
+            boolean valid = log.replay();
+            if (!valid) {
+                clear();
+            }
+            return valid;
+        }
+
+        private void rebuild(Stream<T> scan) throws IOException {
+            lock.lock();
+            try {
+                log.skipExisting();
+                clear();
+                scan.filter(record -> record.getId() != null)
+                        .forEach(record -> apply(record.getId(), definition.valueOf(record)));
+                log.rewrite();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return false when the shared sidecar holds a line this index cannot read
+         */
+        private boolean refresh() {
+            if (!log.isStale()) {
+                return true;
+            }
+            lock.lock();
+            try {
+                return log.refresh();
+            } catch (IOException ignored) {
+                // Keeps answering from the current state; the next lookup tries again
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(String id, String value) throws IOException {
+            lock.lock();
+            try {
+                log.update(() -> {
+                    if (valueById.containsKey(id) && Objects.equals(valueById.get(id), value)) {
+                        return List.of();
+                    }
+                    apply(id, value);
+                    return List.<String[]>of(value == null ? new String[]{"P", id} : new String[]{"P", id, value});
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(String id) throws IOException {
+            lock.lock();
+            try {
+                log.update(() -> {
+                    if (!valueById.containsKey(id)) {
+                        return List.of();
+                    }
+                    unlink(id);
+                    return List.<String[]>of(new String[]{"D", id});
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<String> lookup(IndexQuery<T> query, int limit) {
+            List<String> ids = new ArrayList<>();
+            lock.lock();
+            try {
+                Collection<Set<String>> matches;
+                if (query.isEquality()) {
+                    Set<String> exact = idsByValue.get(query.getEncodedFrom());
+                    matches = exact != null ? List.of(exact) : List.of();
+                } else {
+                    NavigableMap<String, Set<String>> range = idsByValue;
+                    if (query.getEncodedFrom() != null) {
+                        range = range.tailMap(query.getEncodedFrom(), true);
+                    }
+                    if (query.getEncodedTo() != null) {
+                        range = range.headMap(query.getEncodedTo(), true);
+                    }
+                    matches = range.values();
+                }
+                for (Set<String> bucket : matches) {
+                    for (String id : bucket) {
+                        if (ids.size() >= limit) {
+                            return ids;
+                        }
+                        ids.add(id);
+                    }
+                }
+                return ids;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void apply(String id, String value) {
+            unlink(id);
+            valueById.put(id, value);
+            if (value != null) {
+                idsByValue.computeIfAbsent(value, ignored -> new TreeSet<>()).add(id);
+            }
+        }
+
+        private void unlink(String id) {
+            if (!valueById.containsKey(id)) {
+                return;
+            }
+            String previous = valueById.remove(id);
+            if (previous == null) {
+                return;
+            }
+            Set<String> bucket = idsByValue.get(previous);
+            if (bucket != null && bucket.remove(id) && bucket.isEmpty()) {
+                idsByValue.remove(previous);
+            }
+        }
+
+        private void clear() {
+            idsByValue.clear();
+            valueById.clear();
+        }
+
+        private final class Lines implements JsonSidecarLog.Handler {
+
+            @Override
+            public boolean apply(String[] fields) {
+                if (fields[0].equals("P") && (fields.length == 2 || fields.length == 3)) {
+                    SidecarIndex.this.apply(fields[1], fields.length == 3 ? fields[2] : null);
+                    return true;
+                }
+                if (fields[0].equals("D") && fields.length == 2) {
+                    unlink(fields[1]);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void reset() {
+                clear();
+            }
+
+            @Override
+            public List<String[]> snapshot() {
+                List<String[]> rows = new ArrayList<>(valueById.size());
+                valueById.forEach((id, value) -> rows.add(value == null ? new String[]{"P", id} : new String[]{"P", id, value}));
+                return rows;
+            }
+
+            @Override
+            public int size() {
+                return valueById.size();
+            }
+        }
+    }
+}
@@ -3,30 +3,58 @@ package Arcadia.ClexaGod.arcadia.storage.repository.json;
 import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
 import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogService;
+import Arcadia.ClexaGod.arcadia.storage.index.IndexQuery;
+import Arcadia.ClexaGod.arcadia.storage.index.RecordIndex;
 import Arcadia.ClexaGod.arcadia.storage.json.JsonShardConfig;
 import Arcadia.ClexaGod.arcadia.storage.json.JsonShardStrategy;
 import Arcadia.ClexaGod.arcadia.storage.json.AtomicFileWriter;
+import Arcadia.ClexaGod.arcadia.storage.json.FileDurability;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalCodecProvider;
 import Arcadia.ClexaGod.arcadia.storage.model.StorageRecord;
+import Arcadia.ClexaGod.arcadia.storage.repository.StorageFutures;
 import Arcadia.ClexaGod.arcadia.storage.repository.StorageRepository;
+import Arcadia.ClexaGod.arcadia.storage.repository.StorageWriteException;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryExecutor;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryOutcome;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryPolicy;
 import org.allaymc.api.message.I18n;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class JsonRepository<T extends StorageRecord> implements StorageRepository<T> {
+public class JsonRepository<T extends StorageRecord> implements StorageRepository<T>, JournalCodecProvider<T> {
+
+    private static final int PARALLEL_READS = 32;
+    private static final int ID_LOCK_STRIPES = 64;
 
     private final String name;
     private final Path rootPath;
@@ -34,6 +62,11 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
     private final LogService logService;
     private final RetryPolicy retryPolicy;
     private final JsonShardConfig shardConfig;
+    private final JsonIdManifest manifest;
+    private final ReentrantLock[] idLocks = new ReentrantLock[ID_LOCK_STRIPES];
+    private final JsonIndexStore<T> indexes;
+
+    private static final Set<JsonRepository<?>> OPEN_REPOSITORIES = ConcurrentHashMap.newKeySet();
 
     private static final ThreadLocal<MessageDigest> HASHER = ThreadLocal.withInitial(() -> {
         try {
@@ -59,6 +92,11 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
         this.logService = logService;
         this.retryPolicy = retryPolicy;
         this.shardConfig = shardConfig != null ? shardConfig : JsonShardConfig.disabled();
+        this.manifest = new JsonIdManifest(rootPath, this::scanManifest);
+        for (int i = 0; i < ID_LOCK_STRIPES; i++) {
+            idLocks[i] = new ReentrantLock();
+        }
+        this.indexes = new JsonIndexStore<>(rootPath);
     }
 
     @Override
@@ -66,6 +104,11 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
         return name;
     }
 
+    @Override
+    public JsonCodec<T> getCodec() {
+        return codec;
+    }
+
     @Override
     public Optional<T> load(String id) {
         Path path = resolvePath(id);
@@ -80,7 +123,11 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
         }
         try {
             String json = Files.readString(path, StandardCharsets.UTF_8);
-            return Optional.of(codec.decode(json));
+            T record = codec.decode(json);
+            if (record != null && !manifestContains(id)) {
+                adopt(id, path, json);
+            }
+            return Optional.ofNullable(record);
         } catch (Exception e) {
             logService.error(LogCategory.STORAGE,
                     I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, id), e);
@@ -88,20 +135,100 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
         }
     }
 
+    /**
+     * Reads the files in parallel on the virtual thread pool, at most {@value #PARALLEL_READS} at a time.
+     */
+    @Override
+    public Map<String, T> loadMany(Collection<String> ids) {
+        Map<String, T> records = new LinkedHashMap<>();
+        if (ids == null) {
+            return records;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.isBlank()) {
+                keys.add(id.trim());
+            }
+        }
+        if (keys.size() <= 1) {
+            for (String key : keys) {
+                load(key).ifPresent(record -> records.put(key, record));
+            }
+            return records;
+        }
+        Semaphore permits = new Semaphore(PARALLEL_READS);
+        Map<String, CompletableFuture<Optional<T>>> reads = new LinkedHashMap<>();
+        for (String key : keys) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<Optional<T>> read;
+            try {
+                read = CompletableFuture.supplyAsync(() -> load(key), StorageFutures.io());
+            } catch (RejectedExecutionException e) {
+                read = CompletableFuture.completedFuture(load(key));
+            }
+            read.whenComplete((ignored, error) -> permits.release());
+            reads.put(key, read);
+        }
+        reads.forEach((key, read) -> {
+            try {
+                read.join().ifPresent(record -> records.put(key, record));
+            } catch (CompletionException e) {
+                logService.error(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, key), e.getCause());
+            }
+        });
+        return records;
+    }
+
+    /**
+     * Adds a file written behind the manifest's back (copied in, or lost to a crash). Re-checked under the id lock
+     * so a delete that ran after the read is not undone.
+     */
+    private void adopt(String id, Path path, String json) {
+        ReentrantLock idLock = lockFor(id);
+        idLock.lock();
+        try {
+            if (Files.exists(path) && !manifest.contains(id)) {
+                manifestPut(id, path, json);
+            }
+        } finally {
+            idLock.unlock();
+        }
+    }
+
     @Override
     public void save(T record) {
         String id = record.getId();
         Path path = resolvePath(id);
-        RetryOutcome outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
-                "json/save " + name + "/" + id, () -> {
-            try {
-                String json = codec.encode(record);
-                AtomicFileWriter.write(path, json);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        // Opened before the file is written, so the open marker is on disk before any write it has to cover
+        openManifest();
+        ReentrantLock idLock = lockFor(id);
+        String[] written = new String[1];
+        RetryOutcome outcome;
+        idLock.lock();
+        try {
+            outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
+                    "json/save " + name + "/" + id, () -> {
+                try {
+                    String json = codec.encode(record);
+                    AtomicFileWriter.write(path, json);
+                    written[0] = json;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            if (outcome.success()) {
+                manifestPut(id, path, written[0]);
+                if (!indexes.isEmpty()) {
+                    logIndexFailures(indexes.onSave(record));
+                }
             }
-        });
-        if (!outcome.success()) {
+        } finally {
+            idLock.unlock();
+        }
+        if (outcome.success()) {
+            forceManifest();
+        } else {
             Exception error = outcome.error();
             if (error != null) {
                 logService.error(LogCategory.STORAGE,
@@ -110,24 +237,106 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
                 logService.error(LogCategory.STORAGE,
                         I18n.get().tr(LangKeys.LOG_STORAGE_JSON_WRITE_FAILED, name, id));
             }
+            throw new StorageWriteException("json/save " + name + "/" + id, error);
+        }
+    }
+
+    /**
+     * In group-commit mode the records of a batch are written together, so each shard directory is fsynced once per
+     * batch rather than once per record. Records the batch pass could not write go through {@link #save} with its
+     * retries.
+     */
+    @Override
+    public void saveAll(Collection<T> records) {
+        if (records.size() <= 1 || AtomicFileWriter.getDurability() != FileDurability.GROUP_COMMIT) {
+            StorageRepository.super.saveAll(records);
+            return;
+        }
+        openManifest();
+        Map<String, T> latest = new LinkedHashMap<>();
+        List<T> fallback = new ArrayList<>();
+        for (T record : records) {
+            if (record == null || record.getId() == null) {
+                fallback.add(record);
+            } else {
+                latest.remove(record.getId());
+                latest.put(record.getId(), record);
+            }
+        }
+        // Id stripes are taken in index order, so concurrent batches cannot deadlock
+        TreeMap<Integer, ReentrantLock> locks = new TreeMap<>();
+        for (String id : latest.keySet()) {
+            locks.putIfAbsent(stripeOf(id), lockFor(id));
+        }
+        locks.values().forEach(ReentrantLock::lock);
+        try {
+            Map<Path, String> files = new LinkedHashMap<>();
+            Map<String, Path> paths = new LinkedHashMap<>();
+            for (T record : latest.values()) {
+                try {
+                    Path path = resolvePath(record.getId());
+                    files.put(path, codec.encode(record));
+                    paths.put(record.getId(), path);
+                } catch (Exception e) {
+                    fallback.add(record);
+                }
+            }
+            Map<Path, IOException> failed = AtomicFileWriter.writeAll(files);
+            Map<String, JsonIdManifest.Entry> written = new LinkedHashMap<>();
+            for (Map.Entry<String, Path> entry : paths.entrySet()) {
+                if (failed.containsKey(entry.getValue())) {
+                    fallback.add(latest.get(entry.getKey()));
+                } else {
+                    written.put(entry.getKey(), manifest.entryFor(entry.getValue(),
+                            files.get(entry.getValue()).getBytes(StandardCharsets.UTF_8).length));
+                }
+            }
+            manifestPutAll(written);
+            if (!indexes.isEmpty()) {
+                for (String id : written.keySet()) {
+                    logIndexFailures(indexes.onSave(latest.get(id)));
+                }
+            }
+        } finally {
+            locks.descendingMap().values().forEach(ReentrantLock::unlock);
+        }
+        forceManifest();
+        if (!fallback.isEmpty()) {
+            StorageRepository.super.saveAll(fallback);
         }
     }
 
     @Override
     public void delete(String id) {
         Path path = resolvePath(id);
-        RetryOutcome outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
-                "json/delete " + name + "/" + id, () -> {
-            try {
-                boolean deleted = Files.deleteIfExists(path);
-                if (!deleted && shardConfig.isEnabled()) {
-                    Files.deleteIfExists(resolveLegacyPath(id));
+        openManifest();
+        ReentrantLock idLock = lockFor(id);
+        RetryOutcome outcome;
+        idLock.lock();
+        try {
+            outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
+                    "json/delete " + name + "/" + id, () -> {
+                try {
+                    boolean deleted = Files.deleteIfExists(path);
+                    if (!deleted && shardConfig.isEnabled()) {
+                        Files.deleteIfExists(resolveLegacyPath(id));
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            if (outcome.success() && !exists(id)) {
+                manifestRemove(id);
+                if (!indexes.isEmpty()) {
+                    logIndexFailures(indexes.onDelete(id));
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
             }
-        });
-        if (!outcome.success()) {
+        } finally {
+            idLock.unlock();
+        }
+        if (outcome.success()) {
+            forceManifest();
+        } else {
             Exception error = outcome.error();
             if (error != null) {
                 logService.error(LogCategory.STORAGE,
@@ -136,6 +345,7 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
                 logService.error(LogCategory.STORAGE,
                         I18n.get().tr(LangKeys.LOG_STORAGE_JSON_DELETE_FAILED, name, id));
             }
+            throw new StorageWriteException("json/delete " + name + "/" + id, error);
         }
     }
 
@@ -158,31 +368,353 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
 
     @Override
     public List<T> loadAll(int limit) {
-        if (limit <= 0 || !Files.exists(rootPath)) {
+        if (limit <= 0) {
             return List.of();
         }
-        List<T> records = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-        if (shardConfig.isEnabled()) {
-            loadFromSharded(records, seen, limit);
+        try (Stream<T> stream = streamAll()) {
+            return stream.limit(limit).collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Loads the index from its sidecar file under {@code .index/}, rebuilding it with one scan when the file is
+     * missing or out of step with the record count. Register indexes before the repository takes writes.
+     */
+    @Override
+    public void registerIndex(RecordIndex<T> index) {
+        try {
+            long records = count();
+            if (indexes.register(index, records, manifest.wasUnclean(), streamAll())) {
+                logService.info(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_INDEX_REBUILD, name, index.name()));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_INDEX_FAILED, name, index.name()), e);
+        }
+    }
+
+    @Override
+    public List<T> findByIndex(IndexQuery<T> query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<String> ids = indexes.lookup(query, limit);
+        if (ids == null) {
+            return StorageRepository.super.findByIndex(query, limit);
         }
-        if (records.size() < limit) {
-            loadFromLegacy(records, seen, limit);
+        Map<String, T> loaded = loadMany(ids);
+        List<T> records = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T record = loaded.get(id);
+            if (record != null && query.matches(record)) {
+                records.add(record);
+            }
         }
         return records;
     }
 
+    private void logIndexFailures(List<String> failed) {
+        for (String index : failed) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_INDEX_FAILED, name, index));
+        }
+    }
+
+    /**
+     * Iterates the id manifest and reads each record as the stream is consumed; the directory tree is not listed.
+     */
     @Override
-    public long count() {
-        if (!Files.exists(rootPath)) {
-            return 0;
+    public Stream<T> streamAll() {
+        openManifest();
+        Iterator<Map.Entry<String, JsonIdManifest.Entry>> entries = manifest.entries().iterator();
+        Iterator<T> records = new Iterator<>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && entries.hasNext()) {
+                    Map.Entry<String, JsonIdManifest.Entry> entry = entries.next();
+                    next = readEntry(entry.getKey(), entry.getValue());
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T record = next;
+                next = null;
+                return record;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Pages come from the id manifest in id order; only the files of the page are read, in parallel.
+     */
+    @Override
+    public List<T> loadPage(String afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
         }
-        Set<String> ids = new HashSet<>();
-        if (shardConfig.isEnabled()) {
-            collectShardedIds(ids);
+        openManifest();
+        List<String> ids = new ArrayList<>(limit);
+        for (Map.Entry<String, JsonIdManifest.Entry> entry : manifest.page(afterId, limit)) {
+            ids.add(entry.getKey());
+        }
+        Map<String, T> loaded = loadMany(ids);
+        List<T> records = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T record = loaded.get(id);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private T readEntry(String id, JsonIdManifest.Entry entry) {
+        Path path = manifest.resolve(entry);
+        if (Files.exists(path)) {
+            return readRecord(path);
+        }
+        // Stale entry: the file moved (legacy migration) or is gone
+        Optional<T> moved = load(id);
+        if (moved.isEmpty()) {
+            dropStale(id);
+        }
+        return moved.orElse(null);
+    }
+
+    /**
+     * Manifest order is kept when {@code ordered}; stale entries resolve to the current file without migrating it.
+     */
+    @Override
+    public Stream<T> bulkStream(int parallelism, boolean ordered) {
+        if (parallelism <= 1) {
+            return streamAll();
+        }
+        return bulkStream(parallelism, ordered, StorageFutures.io(), StorageFutures.compute());
+    }
+
+    /**
+     * Same pipeline on caller-supplied executors, for running outside a server (benchmarks).
+     */
+    Stream<T> bulkStream(int parallelism, boolean ordered, Executor io, Executor compute) {
+        openManifest();
+        JsonBulkLoader<Map.Entry<String, JsonIdManifest.Entry>, T> loader = new JsonBulkLoader<>(
+                manifest.entries().iterator(), parallelism, ordered,
+                entry -> readEntryJson(entry.getKey(), entry.getValue()),
+                (entry, json) -> decodeEntry(entry.getKey(), json),
+                io, compute);
+        int characteristics = ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(loader, characteristics), false)
+                .onClose(loader::close);
+    }
+
+    private String readEntryJson(String id, JsonIdManifest.Entry entry) {
+        Path path = manifest.resolve(entry);
+        if (!Files.exists(path)) {
+            path = resolvePath(id);
+            if (!Files.exists(path) && shardConfig.isEnabled()) {
+                path = resolveLegacyPath(id);
+            }
+            if (!Files.exists(path)) {
+                dropStale(id);
+                return null;
+            }
+        }
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, id), e);
+            return null;
+        }
+    }
+
+    private T decodeEntry(String id, String json) {
+        try {
+            return codec.decode(json);
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, id), e);
+            return null;
+        }
+    }
+
+    private void dropStale(String id) {
+        ReentrantLock idLock = lockFor(id);
+        idLock.lock();
+        try {
+            if (!exists(id)) {
+                manifestRemove(id);
+            }
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the manifest from the files on disk. Every file is decoded once to learn its real id.
+     */
+    private Map<String, JsonIdManifest.Entry> scanManifest() {
+        Map<String, JsonIdManifest.Entry> entries = new HashMap<>();
+        logService.info(LogCategory.STORAGE, I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_REBUILD, name));
+        try (JsonFileIterator files = new JsonFileIterator(rootPath, walkDepth())) {
+            while (files.hasNext()) {
+                Path path = files.next();
+                T record = readRecord(path);
+                if (record == null || isShadowedLegacy(path, record)) {
+                    continue;
+                }
+                String id = record.getId() != null && !record.getId().isBlank() ? record.getId() : extractId(path);
+                entries.put(id, manifest.entryFor(path, Files.size(path)));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, "manifest"), e);
+        }
+        return entries;
+    }
+
+    private void openManifest() {
+        if (manifest.isOpen()) {
+            return;
+        }
+        try {
+            manifest.open();
+            OPEN_REPOSITORIES.add(this);
+        } catch (IOException e) {
+            // The in-memory manifest is still complete; only persisting it failed
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_FAILED, name), e);
+        }
+    }
+
+    /**
+     * Persists the manifest and clears its open marker. The repository stays usable; the next access reopens it.
+     */
+    public void close() {
+        OPEN_REPOSITORIES.remove(this);
+        indexes.close();
+        try {
+            manifest.close();
+        } catch (IOException e) {
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_FAILED, name), e);
+        }
+    }
+
+    /**
+     * Closes every opened repository stored under the given root; called when the JSON provider shuts down.
+     */
+    public static void closeAll(Path root) {
+        for (JsonRepository<?> repository : List.copyOf(OPEN_REPOSITORIES)) {
+            if (repository.rootPath.startsWith(root)) {
+                repository.close();
+            }
+        }
+    }
+
+    private boolean manifestContains(String id) {
+        openManifest();
+        return manifest.contains(id);
+    }
+
+    private void manifestPut(String id, Path path, String json) {
+        openManifest();
+        try {
+            manifest.put(id, path, json != null ? json.getBytes(StandardCharsets.UTF_8).length : 0);
+        } catch (IOException e) {
+            manifest.invalidate();
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_FAILED, name), e);
+        }
+    }
+
+    private void manifestPutAll(Map<String, JsonIdManifest.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            manifest.putAll(entries);
+        } catch (IOException e) {
+            manifest.invalidate();
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_FAILED, name), e);
+        }
+    }
+
+    /**
+     * Makes the manifest lines as durable as the record files when a durability mode is configured; concurrent
+     * writers share one force. A failure only costs a rescan, since an unclean stop rebuilds the manifest anyway.
+     */
+    private void forceManifest() {
+        if (AtomicFileWriter.getDurability() == FileDurability.NONE) {
+            return;
+        }
+        try {
+            manifest.force();
+        } catch (IOException e) {
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_FAILED, name), e);
+        }
+    }
+
+    private void manifestRemove(String id) {
+        openManifest();
+        try {
+            manifest.remove(id);
+        } catch (IOException e) {
+            manifest.invalidate();
+            logService.warn(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_MANIFEST_FAILED, name), e);
         }
-        collectLegacyIds(ids);
-        return ids.size();
+    }
+
+    private ReentrantLock lockFor(String id) {
+        return idLocks[stripeOf(id)];
+    }
+
+    private static int stripeOf(String id) {
+        return Math.floorMod(id == null ? 0 : id.hashCode(), ID_LOCK_STRIPES);
+    }
+
+    private int walkDepth() {
+        return shardConfig.isEnabled() ? shardConfig.getDepth() + 1 : 1;
+    }
+
+    private T readRecord(Path path) {
+        try {
+            return codec.decode(Files.readString(path, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, extractId(path)), e);
+            return null;
+        }
+    }
+
+    private boolean isShadowedLegacy(Path path, T record) {
+        if (!shardConfig.isEnabled() || !isLegacyFile(path)) {
+            return false;
+        }
+        String id = record.getId();
+        return id != null && !id.isBlank() && Files.exists(resolveShardedPath(id));
+    }
+
+    /**
+     * Served from the id manifest; only the first call on a store without one scans the files.
+     */
+    @Override
+    public long count() {
+        openManifest();
+        return manifest.size();
     }
 
     private Path resolvePath(String id) {
@@ -212,10 +744,6 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
         return current.resolve(safeName(id) + ".json");
     }
 
-    private boolean isJsonFile(Path path) {
-        return path != null && path.getFileName().toString().endsWith(".json");
-    }
-
     private boolean isLegacyFile(Path path) {
         Path parent = path != null ? path.getParent() : null;
         return parent != null && parent.equals(rootPath);
@@ -232,6 +760,7 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
                 try {
                     AtomicFileWriter.write(target, json);
                     Files.deleteIfExists(legacy);
+                    manifestPut(record.getId() != null ? record.getId() : id, target, json);
                 } catch (Exception e) {
                     logService.warn(LogCategory.STORAGE,
                             I18n.get().tr(LangKeys.LOG_STORAGE_JSON_SHARD_MIGRATE_FAILED, name, id));
@@ -245,80 +774,6 @@ public class JsonRepository<T extends StorageRecord> implements StorageRepositor
         }
     }
 
-    private void loadFromSharded(List<T> records, Set<String> seen, int limit) {
-        int maxDepth = shardConfig.getDepth() + 1;
-        try (Stream<Path> paths = Files.walk(rootPath, Math.max(1, maxDepth))) {
-            var iterator = paths.filter(this::isJsonFile).iterator();
-            while (iterator.hasNext() && records.size() < limit) {
-                Path path = iterator.next();
-                if (isLegacyFile(path)) {
-                    continue;
-                }
-                loadRecord(path, records, seen, limit);
-            }
-        } catch (IOException e) {
-            logService.error(LogCategory.STORAGE,
-                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, "list"), e);
-        }
-    }
-
-    private void loadFromLegacy(List<T> records, Set<String> seen, int limit) {
-        try (Stream<Path> paths = Files.list(rootPath)) {
-            var iterator = paths.filter(this::isJsonFile).iterator();
-            while (iterator.hasNext() && records.size() < limit) {
-                Path path = iterator.next();
-                loadRecord(path, records, seen, limit);
-            }
-        } catch (IOException e) {
-            logService.error(LogCategory.STORAGE,
-                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, "list"), e);
-        }
-    }
-
-    private void loadRecord(Path path, List<T> records, Set<String> seen, int limit) {
-        String fileId = extractId(path);
-        try {
-            String json = Files.readString(path, StandardCharsets.UTF_8);
-            T record = codec.decode(json);
-            if (record == null) {
-                return;
-            }
-            String recordId = record != null ? record.getId() : fileId;
-            if (recordId == null || recordId.isBlank()) {
-                recordId = fileId;
-            }
-            if (!seen.contains(recordId) && records.size() < limit) {
-                records.add(record);
-                seen.add(recordId);
-            }
-        } catch (Exception e) {
-            logService.error(LogCategory.STORAGE,
-                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, fileId), e);
-        }
-    }
-
-    private void collectShardedIds(Set<String> ids) {
-        int maxDepth = shardConfig.getDepth() + 1;
-        try (Stream<Path> paths = Files.walk(rootPath, Math.max(1, maxDepth))) {
-            paths.filter(this::isJsonFile)
-                    .filter(path -> !isLegacyFile(path))
-                    .forEach(path -> ids.add(extractId(path)));
-        } catch (IOException e) {
-            logService.error(LogCategory.STORAGE,
-                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, "count"), e);
-        }
-    }
-
-    private void collectLegacyIds(Set<String> ids) {
-        try (Stream<Path> paths = Files.list(rootPath)) {
-            paths.filter(this::isJsonFile)
-                    .forEach(path -> ids.add(extractId(path)));
-        } catch (IOException e) {
-            logService.error(LogCategory.STORAGE,
-                    I18n.get().tr(LangKeys.LOG_STORAGE_JSON_READ_FAILED, name, "count"), e);
-        }
-    }
-
     private String extractId(Path path) {
         String fileName = path.getFileName().toString();
         int idx = fileName.lastIndexOf('.');
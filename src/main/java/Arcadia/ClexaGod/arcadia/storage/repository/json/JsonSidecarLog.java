@@ -0,0 +1,504 @@
+package Arcadia.ClexaGod.arcadia.storage.repository.json;
+
+import Arcadia.ClexaGod.arcadia.storage.json.AtomicFileWriter;
+import Arcadia.ClexaGod.arcadia.storage.json.FileLockMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Tab-separated append log kept next to a JSON repository (id manifest, secondary indexes). Each change is one
+ * appended line through a channel that stays open until {@link #close}; {@link #rewrite} replaces the whole file
+ * atomically once the log has outgrown the live state. Lines reach the owner's in-memory state through its
+ * {@link Handler}.
+ * <p>
+ * Unless the data folder is owned by this process alone (lock mode process), other processes may append to the
+ * same file. Changes then run under an OS lock on a {@code <file>.mutex} sibling, after applying the lines other
+ * processes appended meanwhile, and a file replaced by another process's rewrite is read again from the start.
+ * Owners call {@link #refresh} before reading their state when {@link #isStale} says the file moved on.
+ * <p>
+ * Not thread-safe; owners serialize access, except for {@link #force} and {@link #isStale}.
+ */
+final class JsonSidecarLog {
+
+    private static final int COMPACT_MIN_LINES = 1024;
+    private static final int READ_CHUNK = 64 * 1024;
+    // OS file locks are held per JVM, so threads and log instances of this JVM queue on these first
+    private static final Map<Path, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * The owner's side of the log.
+     */
+    interface Handler {
+
+        /**
+         * Applies one line to the in-memory state.
+         *
+         * @return false when the line is not understood
+         */
+        boolean apply(String[] fields);
+
+        /**
+         * Drops the state built from earlier lines before the file is read again from the start.
+         */
+        void reset();
+
+        /**
+         * One row per live entry, written by {@link #rewrite}.
+         */
+        List<String[]> snapshot();
+
+        int size();
+    }
+
+    private final Path file;
+    private final Path mutexFile;
+    private final Handler handler;
+    private final ReentrantLock processLock;
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final AtomicLong appended = new AtomicLong();
+    private volatile long forced;
+    private volatile FileChannel channel;
+    private Object channelKey;
+    private FileChannel mutexChannel;
+    private FileLock mutexLock;
+    // Identity and length of the file contents already applied to the owner's state
+    private volatile Object readKey;
+    private volatile long readPosition;
+    private int lines;
+
+    JsonSidecarLog(Path file, Handler handler) {
+        this.file = file.toAbsolutePath().normalize();
+        this.mutexFile = this.file.resolveSibling(this.file.getFileName() + ".mutex");
+        this.handler = handler;
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(this.file, ignored -> new ReentrantLock());
+    }
+
+    /**
+     * True unless the lock mode declares this process the data folder's only user.
+     */
+    static boolean shared() {
+        return AtomicFileWriter.getLockMode() != FileLockMode.PROCESS;
+    }
+
+    boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Resets the owner's state and feeds it every line of the file.
+     *
+     * @return false when the file is missing, unreadable, or the handler rejected a line
+     */
+    boolean replay() {
+        readKey = null;
+        readPosition = 0;
+        if (!Files.exists(file)) {
+            handler.reset();
+            lines = 0;
+            return false;
+        }
+        try {
+            return readNew();
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Marks the current file contents as applied without reading them, before the owner rebuilds its state from a
+     * scan; lines other processes append from here on are applied on top of the scan by the next {@link #rewrite}.
+     */
+    void skipExisting() {
+        lines = 0;
+        readKey = null;
+        readPosition = 0;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            readKey = keyOf(attributes);
+            readPosition = attributes.size();
+        } catch (IOException ignored) {
+            // Missing file: nothing to skip
+        }
+    }
+
+    /**
+     * Cheap check, without locks, whether another process changed the file since this log last read or wrote it.
+     */
+    boolean isStale() {
+        if (!shared()) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return !Objects.equals(keyOf(attributes), readKey) || attributes.size() != readPosition;
+        } catch (IOException e) {
+            // A deleted file keeps the current state; the next change writes it again in full
+            return false;
+        }
+    }
+
+    /**
+     * Applies what other processes appended, or reloads a file they replaced.
+     *
+     * @return false when a line was not understood and the owner's state is incomplete
+     */
+    boolean refresh() throws IOException {
+        if (!shared() || !Files.exists(file)) {
+            return true;
+        }
+        return readNew();
+    }
+
+    /**
+     * Runs one change of the owner: {@code change} updates the in-memory state and returns the rows describing it,
+     * which are appended, or the whole state is rewritten when the log is due for compaction. With a shared folder
+     * this runs under the file lock, after the lines of other processes were applied.
+     */
+    void update(Supplier<List<String[]>> change) throws IOException {
+        boolean shared = shared();
+        if (shared) {
+            lockFile();
+        }
+        try {
+            boolean missing = shared ? catchUp() : channel == null && !Files.exists(file);
+            List<String[]> rows = change.get();
+            if (rows.isEmpty()) {
+                return;
+            }
+            // A missing file is written in full, never started from this change alone
+            if (missing || lines + rows.size() >= Math.max(COMPACT_MIN_LINES, handler.size() * 2)) {
+                writeSnapshot();
+            } else {
+                appendRows(rows);
+            }
+            if (shared) {
+                markRead();
+            }
+        } finally {
+            if (shared) {
+                unlockFile();
+            }
+        }
+    }
+
+    /**
+     * Replaces the file with the owner's current state; with a shared folder, lines appended by other processes
+     * since the last read are applied first.
+     */
+    void rewrite() throws IOException {
+        boolean shared = shared();
+        if (shared) {
+            lockFile();
+        }
+        try {
+            if (shared) {
+                catchUp();
+            }
+            writeSnapshot();
+            if (shared) {
+                markRead();
+            }
+        } finally {
+            if (shared) {
+                unlockFile();
+            }
+        }
+    }
+
+    /**
+     * Forces every line appended so far to disk. Concurrent callers share one force: a caller that arrives while
+     * another force runs waits for it and only forces again if lines were appended after that force started.
+     */
+    void force() throws IOException {
+        long target = appended.get();
+        if (forced >= target) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (forced >= target) {
+                return;
+            }
+            long upTo = appended.get();
+            FileChannel current = channel;
+            if (current != null) {
+                try {
+                    current.force(false);
+                } catch (ClosedChannelException ignored) {
+                    // Closed by a rewrite, which wrote the same lines to the new file with the writer's durability
+                }
+            }
+            forced = upTo;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Forces and closes the channels; a later change reopens them.
+     */
+    void close() throws IOException {
+        force();
+        closeChannel();
+        if (mutexChannel != null) {
+            try {
+                mutexChannel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            mutexChannel = null;
+        }
+    }
+
+    void delete() {
+        lines = 0;
+        readKey = null;
+        readPosition = 0;
+        closeChannel();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Treated as missing and rebuilt on next open either way
+        }
+    }
+
+    /**
+     * Called under the file lock before a change: applies the lines of other processes, drops a channel that still
+     * points at a file they replaced, and cuts off a line left half-written by a process that died mid-append.
+     *
+     * @return true when the file does not exist
+     */
+    private boolean catchUp() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            closeChannel();
+            return true;
+        }
+        if (channel != null && !Objects.equals(channelKey, keyOf(attributes))) {
+            closeChannel();
+        }
+        if (!readNew()) {
+            throw new IOException("Unreadable line in " + file);
+        }
+        if (Files.size(file) > readPosition) {
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(readPosition);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Feeds the complete lines past the read position to the handler; a trailing partial line is left for later.
+     * Starts over from the beginning when the file was replaced or shrank, or was never read.
+     */
+    private boolean readNew() throws IOException {
+        // Read before opening: a rename in between is then seen as a key change on the next check
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Object key = keyOf(attributes);
+        if (readKey == null || !readKey.equals(key) || attributes.size() < readPosition) {
+            handler.reset();
+            lines = 0;
+            readPosition = 0;
+        }
+        readKey = key;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = readPosition;
+            in.position(position);
+            ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+            ByteArrayOutputStream pending = new ByteArrayOutputStream();
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                byte[] bytes = buffer.array();
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+                    pending.write(bytes, start, i - start);
+                    String text = pending.toString(StandardCharsets.UTF_8);
+                    pending.reset();
+                    start = i + 1;
+                    if (!text.isEmpty() && !handler.apply(split(text))) {
+                        readPosition = position + start;
+                        return false;
+                    }
+                    if (!text.isEmpty()) {
+                        lines++;
+                    }
+                    readPosition = position + start;
+                }
+                pending.write(bytes, start, read - start);
+                position += read;
+                buffer.clear();
+            }
+            return true;
+        }
+    }
+
+    private void markRead() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        readKey = keyOf(attributes);
+        readPosition = attributes.size();
+    }
+
+    private void appendRows(List<String[]> rows) throws IOException {
+        StringBuilder out = new StringBuilder();
+        for (String[] fields : rows) {
+            out.append(line(fields));
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(out.toString());
+        FileChannel current = openChannel();
+        while (bytes.hasRemaining()) {
+            current.write(bytes);
+        }
+        lines += rows.size();
+        appended.incrementAndGet();
+    }
+
+    private void writeSnapshot() throws IOException {
+        List<String[]> rows = handler.snapshot();
+        StringBuilder out = new StringBuilder();
+        for (String[] fields : rows) {
+            out.append(line(fields));
+        }
+        // The rename replaces the file, so appends must go through a channel on the new one
+        closeChannel();
+        AtomicFileWriter.write(file, out.toString());
+        lines = rows.size();
+        appended.incrementAndGet();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        FileChannel current = channel;
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        Path parent = file.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        current = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelKey = keyOf(Files.readAttributes(file, BasicFileAttributes.class));
+        channel = current;
+        return current;
+    }
+
+    private void closeChannel() {
+        FileChannel current = channel;
+        channel = null;
+        channelKey = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void lockFile() throws IOException {
+        processLock.lock();
+        try {
+            if (mutexChannel == null || !mutexChannel.isOpen()) {
+                Files.createDirectories(mutexFile.getParent());
+                mutexChannel = FileChannel.open(mutexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            mutexLock = mutexChannel.lock();
+        } catch (IOException | RuntimeException e) {
+            processLock.unlock();
+            throw e;
+        }
+    }
+
+    private void unlockFile() {
+        try {
+            mutexLock.release();
+        } catch (IOException ignored) {
+            // Closing the channel releases it at the latest
+        } finally {
+            mutexLock = null;
+            processLock.unlock();
+        }
+    }
+
+    // Platforms without inode keys fall back to the creation time, which a rename-based rewrite also changes
+    private static Object keyOf(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        return key != null ? key : attributes.creationTime();
+    }
+
+    private static String[] split(String line) {
+        String[] fields = line.split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private static String line(String[] fields) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.append('\t');
+            }
+            escape(fields[i], out);
+        }
+        return out.append('\n').toString();
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                out.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 't' -> out.append('\t');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                default -> out.append(next);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -3,22 +3,67 @@ package Arcadia.ClexaGod.arcadia.storage.repository.meta;
 import Arcadia.ClexaGod.arcadia.i18n.LangKeys;
 import Arcadia.ClexaGod.arcadia.logging.LogCategory;
 import Arcadia.ClexaGod.arcadia.logging.LogService;
+import Arcadia.ClexaGod.arcadia.storage.index.IndexQuery;
+import Arcadia.ClexaGod.arcadia.storage.index.RecordIndex;
+import Arcadia.ClexaGod.arcadia.storage.journal.JournalCodecProvider;
+import Arcadia.ClexaGod.arcadia.storage.repository.BatchWriteException;
 import Arcadia.ClexaGod.arcadia.storage.repository.StorageRepository;
+import Arcadia.ClexaGod.arcadia.storage.repository.StorageWriteException;
+import Arcadia.ClexaGod.arcadia.storage.repository.json.JsonCodec;
+import Arcadia.ClexaGod.arcadia.storage.retry.RetryDeferredException;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryExecutor;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryOutcome;
 import Arcadia.ClexaGod.arcadia.storage.retry.RetryPolicy;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.Strictness;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.allaymc.api.message.I18n;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public final class PostgresMetaRepository implements StorageRepository<MetaRecord> {
+public final class PostgresMetaRepository implements StorageRepository<MetaRecord>, JournalCodecProvider<MetaRecord> {
 
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String UPSERT_SQL = """
+            INSERT INTO arcadia_meta (key, value, value_json, updated_at)
+            VALUES (?, ?, ?::jsonb, CURRENT_TIMESTAMP)
+            ON CONFLICT (key)
+            DO UPDATE SET value = EXCLUDED.value, value_json = EXCLUDED.value_json, updated_at = CURRENT_TIMESTAMP
+            """;
+    private static final String DELETE_SQL = "DELETE FROM arcadia_meta WHERE key = ?";
+    private static final String COUNTER_SQL =
+            "SELECT SUM(records) FROM arcadia_record_count_stripes WHERE table_name = 'arcadia_meta'";
+    private static final JsonCodec<MetaRecord> CODEC = new MetaJsonCodec();
+    private static final TypeAdapter<JsonElement> JSON_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private final Map<String, RecordIndex<MetaRecord>> sqlIndexes = new ConcurrentHashMap<>();
     private final DataSource dataSource;
     private final LogService logService;
     private final RetryPolicy retryPolicy;
@@ -38,6 +83,11 @@ public final class PostgresMetaRepository implements StorageRepository<MetaRecor
         return "meta";
     }
 
+    @Override
+    public JsonCodec<MetaRecord> getCodec() {
+        return CODEC;
+    }
+
     @Override
     public Optional<MetaRecord> load(String id) {
         String sql = "SELECT value FROM arcadia_meta WHERE key = ?";
@@ -56,20 +106,168 @@ public final class PostgresMetaRepository implements StorageRepository<MetaRecor
         return Optional.empty();
     }
 
+    /**
+     * Indexes with a JSON field become expression indexes on arcadia_meta; others are answered by scanning.
+     */
+    @Override
+    public void registerIndex(RecordIndex<MetaRecord> index) {
+        if (index.jsonField() == null) {
+            return;
+        }
+        String sql = "CREATE INDEX IF NOT EXISTS \"arcadia_meta_idx_" + index.name()
+                + "\" ON arcadia_meta ((" + sqlExpression(index) + "))";
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            sqlIndexes.put(index.name(), index);
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_INDEX_FAILED, getName(), index.name()), e);
+        }
+    }
+
+    @Override
+    public List<MetaRecord> findByIndex(IndexQuery<MetaRecord> query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        RecordIndex<MetaRecord> index = sqlIndexes.get(query.getIndex().name());
+        if (index == null) {
+            return StorageRepository.super.findByIndex(query, limit);
+        }
+        String expression = "(" + sqlExpression(index) + ")";
+        StringBuilder sql = new StringBuilder("SELECT key, value FROM arcadia_meta WHERE ");
+        List<Object> params = new ArrayList<>(3);
+        if (query.isEquality()) {
+            sql.append(expression).append(" = ?");
+            params.add(sqlValue(index, query.getFrom()));
+        } else {
+            sql.append("TRUE");
+            if (query.getFrom() != null) {
+                sql.append(" AND ").append(expression).append(" >= ?");
+                params.add(sqlValue(index, query.getFrom()));
+            }
+            if (query.getTo() != null) {
+                sql.append(" AND ").append(expression).append(" <= ?");
+                params.add(sqlValue(index, query.getTo()));
+            }
+        }
+        sql.append(" ORDER BY ").append(expression).append(", key LIMIT ?");
+        params.add(limit);
+        List<MetaRecord> records = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(new MetaRecord(rs.getString("key"), rs.getString("value")));
+                }
+            }
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_READ_FAILED, getName(), "index " + index.name()), e);
+        }
+        return records;
+    }
+
+    /**
+     * Builds the index expression from the validated field path over value_json (V3 migration), which is NULL for
+     * values that are not JSON; arcadia_try_bigint turns non-numeric fields into NULL for NUMBER indexes.
+     */
+    private static String sqlExpression(RecordIndex<MetaRecord> index) {
+        StringBuilder path = new StringBuilder("'{");
+        List<String> segments = index.jsonPath();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i > 0) {
+                path.append(',');
+            }
+            path.append('"').append(segments.get(i)).append('"');
+        }
+        path.append("}'");
+        String text = "value_json #>> " + path;
+        return index.kind() == RecordIndex.IndexKind.NUMBER ? "arcadia_try_bigint(" + text + ")" : text;
+    }
+
+    /**
+     * The value for value_json, or null when it is not strict JSON; a NUL escape is left out too since JSONB rejects
+     * it and would fail the whole upsert.
+     */
+    private static String jsonValue(String value) {
+        if (value == null || value.contains("\\u0000")) {
+            return null;
+        }
+        try {
+            JsonReader reader = new JsonReader(new StringReader(value));
+            reader.setStrictness(Strictness.STRICT);
+            JSON_ADAPTER.read(reader);
+            return reader.peek() == JsonToken.END_DOCUMENT ? value : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Object sqlValue(RecordIndex<MetaRecord> index, Object value) {
+        if (index.kind() == RecordIndex.IndexKind.NUMBER) {
+            return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString().trim());
+        }
+        return value.toString();
+    }
+
+    /**
+     * One connection and one {@code key = ANY(?)} query per 500 ids.
+     */
+    @Override
+    public Map<String, MetaRecord> loadMany(Collection<String> ids) {
+        Map<String, MetaRecord> records = new LinkedHashMap<>();
+        if (ids == null) {
+            return records;
+        }
+        Set<String> pending = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.isBlank()) {
+                pending.add(id.trim());
+            }
+        }
+        if (pending.isEmpty()) {
+            return records;
+        }
+        List<String> keys = new ArrayList<>(pending);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT key, value FROM arcadia_meta WHERE key = ANY(?)")) {
+            for (int start = 0; start < keys.size(); start += MAX_BATCH_SIZE) {
+                List<String> chunk = keys.subList(start, Math.min(keys.size(), start + MAX_BATCH_SIZE));
+                Array array = connection.createArrayOf("varchar", chunk.toArray());
+                try {
+                    ps.setArray(1, array);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String key = rs.getString("key");
+                            records.put(key, new MetaRecord(key, rs.getString("value")));
+                        }
+                    }
+                } finally {
+                    array.free();
+                }
+            }
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_READ_FAILED, getName(), "batch (" + keys.size() + ")"), e);
+        }
+        return records;
+    }
+
     @Override
     public void save(MetaRecord record) {
-        String sql = """
-                INSERT INTO arcadia_meta (key, value, updated_at)
-                VALUES (?, ?, CURRENT_TIMESTAMP)
-                ON CONFLICT (key)
-                DO UPDATE SET value = EXCLUDED.value, updated_at = CURRENT_TIMESTAMP
-                """;
+        String sql = UPSERT_SQL;
         RetryOutcome outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
                 "postgres/save " + getName() + "/" + record.getId(), () -> {
             try (Connection connection = dataSource.getConnection();
                  PreparedStatement ps = connection.prepareStatement(sql)) {
                 ps.setString(1, record.getId());
                 ps.setString(2, record.getValue());
+                ps.setString(3, jsonValue(record.getValue()));
                 ps.executeUpdate();
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -84,12 +282,13 @@ public final class PostgresMetaRepository implements StorageRepository<MetaRecor
                 logService.error(LogCategory.STORAGE,
                         I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_WRITE_FAILED, getName(), record.getId()));
             }
+            throw new StorageWriteException("postgres/save " + getName() + "/" + record.getId(), error);
         }
     }
 
     @Override
     public void delete(String id) {
-        String sql = "DELETE FROM arcadia_meta WHERE key = ?";
+        String sql = DELETE_SQL;
         RetryOutcome outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
                 "postgres/delete " + getName() + "/" + id, () -> {
             try (Connection connection = dataSource.getConnection();
@@ -109,9 +308,167 @@ public final class PostgresMetaRepository implements StorageRepository<MetaRecor
                 logService.error(LogCategory.STORAGE,
                         I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_DELETE_FAILED, getName(), id));
             }
+            throw new StorageWriteException("postgres/delete " + getName() + "/" + id, error);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<MetaRecord> records) {
+        List<MetaRecord> pending = new ArrayList<>(records.size());
+        for (MetaRecord record : records) {
+            if (record != null) {
+                pending.add(record);
+            }
+        }
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (int start = 0; start < pending.size(); start += MAX_BATCH_SIZE) {
+            List<MetaRecord> chunk = pending.subList(start, Math.min(pending.size(), start + MAX_BATCH_SIZE));
+            RetryOutcome outcome;
+            try {
+                outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
+                        "postgres/save-batch " + getName() + " (" + chunk.size() + ")", () -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        executeSaveBatch(connection, chunk);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            } catch (RetryDeferredException deferred) {
+                // The chunk rolled back; later chunks still run and only this one is retried.
+                for (MetaRecord record : chunk) {
+                    failures.put(record.getId(), deferred);
+                }
+                continue;
+            }
+            if (!outcome.success()) {
+                logService.warn(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_BATCH_FALLBACK, getName(), chunk.size()), outcome.error());
+                failures.putAll(saveIsolated(chunk));
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new BatchWriteException(getName(), failures);
         }
     }
 
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        List<String> pending = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (id != null) {
+                pending.add(id);
+            }
+        }
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (int start = 0; start < pending.size(); start += MAX_BATCH_SIZE) {
+            List<String> chunk = pending.subList(start, Math.min(pending.size(), start + MAX_BATCH_SIZE));
+            RetryOutcome outcome;
+            try {
+                outcome = RetryExecutor.run(retryPolicy, logService, LogCategory.STORAGE,
+                        "postgres/delete-batch " + getName() + " (" + chunk.size() + ")", () -> {
+                    try (Connection connection = dataSource.getConnection();
+                         PreparedStatement ps = connection.prepareStatement("DELETE FROM arcadia_meta WHERE key = ANY(?)")) {
+                        Array keys = connection.createArrayOf("varchar", chunk.toArray());
+                        try {
+                            ps.setArray(1, keys);
+                            ps.executeUpdate();
+                        } finally {
+                            keys.free();
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            } catch (RetryDeferredException deferred) {
+                for (String id : chunk) {
+                    failures.put(id, deferred);
+                }
+                continue;
+            }
+            if (!outcome.success()) {
+                logService.warn(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_BATCH_FALLBACK, getName(), chunk.size()), outcome.error());
+                failures.putAll(deleteIsolated(chunk));
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new BatchWriteException(getName(), failures);
+        }
+    }
+
+    private void executeSaveBatch(Connection connection, List<MetaRecord> chunk) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+            for (MetaRecord record : chunk) {
+                ps.setString(1, record.getId());
+                ps.setString(2, record.getValue());
+                ps.setString(3, jsonValue(record.getValue()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Writes the records one by one; returns the ids that still failed, with their error.
+     */
+    private Map<String, Exception> saveIsolated(List<MetaRecord> chunk) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+            for (MetaRecord record : chunk) {
+                try {
+                    ps.setString(1, record.getId());
+                    ps.setString(2, record.getValue());
+                    ps.setString(3, jsonValue(record.getValue()));
+                    ps.executeUpdate();
+                } catch (Exception e) {
+                    failures.put(record.getId(), e);
+                    logService.error(LogCategory.STORAGE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_WRITE_FAILED, getName(), record.getId()), e);
+                }
+            }
+        } catch (Exception e) {
+            for (MetaRecord record : chunk) {
+                failures.putIfAbsent(record.getId(), e);
+                logService.error(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_WRITE_FAILED, getName(), record.getId()), e);
+            }
+        }
+        return failures;
+    }
+
+    private Map<String, Exception> deleteIsolated(List<String> chunk) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(DELETE_SQL)) {
+            for (String id : chunk) {
+                try {
+                    ps.setString(1, id);
+                    ps.executeUpdate();
+                } catch (Exception e) {
+                    failures.put(id, e);
+                    logService.error(LogCategory.STORAGE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_DELETE_FAILED, getName(), id), e);
+                }
+            }
+        } catch (Exception e) {
+            for (String id : chunk) {
+                failures.putIfAbsent(id, e);
+                logService.error(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_DELETE_FAILED, getName(), id), e);
+            }
+        }
+        return failures;
+    }
+
     @Override
     public boolean exists(String id) {
         String sql = "SELECT 1 FROM arcadia_meta WHERE key = ?";
@@ -159,14 +516,148 @@ public final class PostgresMetaRepository implements StorageRepository<MetaRecor
         return records;
     }
 
+    /**
+     * Streams the table through a server-side cursor: autocommit is off so the driver honours the fetch size, and the
+     * connection is held until the stream is closed.
+     */
     @Override
-    public long count() {
-        String sql = "SELECT COUNT(*) FROM arcadia_meta";
+    public Stream<MetaRecord> streamAll() {
+        Connection connection = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            ps = connection.prepareStatement("SELECT key, value FROM arcadia_meta",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            rs = ps.executeQuery();
+        } catch (Exception e) {
+            closeCursor(connection, ps, rs);
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_READ_FAILED, getName(), "stream"), e);
+            return Stream.empty();
+        }
+        Connection openConnection = connection;
+        PreparedStatement openStatement = ps;
+        ResultSet cursor = rs;
+        Iterator<MetaRecord> iterator = new Iterator<>() {
+            private MetaRecord next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) {
+                    return true;
+                }
+                if (done) {
+                    return false;
+                }
+                try {
+                    if (cursor.next()) {
+                        next = new MetaRecord(cursor.getString("key"), cursor.getString("value"));
+                        return true;
+                    }
+                } catch (SQLException e) {
+                    logService.error(LogCategory.STORAGE,
+                            I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_READ_FAILED, getName(), "stream"), e);
+                }
+                done = true;
+                return false;
+            }
+
+            @Override
+            public MetaRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MetaRecord record = next;
+                next = null;
+                return record;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeCursor(openConnection, openStatement, cursor));
+    }
+
+    @Override
+    public List<MetaRecord> loadPage(String afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String sql = afterId == null
+                ? "SELECT key, value FROM arcadia_meta ORDER BY key LIMIT ?"
+                : "SELECT key, value FROM arcadia_meta WHERE key > ? ORDER BY key LIMIT ?";
+        List<MetaRecord> records = new ArrayList<>(Math.min(limit, MAX_BATCH_SIZE));
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-                return rs.getLong(1);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (afterId != null) {
+                ps.setString(index++, afterId);
+            }
+            ps.setInt(index, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(new MetaRecord(rs.getString("key"), rs.getString("value")));
+                }
+            }
+        } catch (Exception e) {
+            logService.error(LogCategory.STORAGE,
+                    I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_READ_FAILED, getName(), "page"), e);
+        }
+        return records;
+    }
+
+    private void closeCursor(Connection connection, PreparedStatement ps, ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                ps.close();
+            }
+        } catch (SQLException ignored) {
+            // The connection close below releases them anyway
+        }
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException ignored) {
+            // Pool resets the connection state on return
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logService.warn(LogCategory.STORAGE,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_POSTGRES_READ_FAILED, getName(), "stream"), e);
+            }
+        }
+    }
+
+    /**
+     * Sums the trigger-maintained counter stripes; falls back to COUNT(*) when no stripe exists yet.
+     */
+    @Override
+    public long count() {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(COUNTER_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    long records = rs.getLong(1);
+                    if (!rs.wasNull()) {
+                        return records;
+                    }
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM arcadia_meta");
+                 ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
             }
         } catch (Exception e) {
             logService.error(LogCategory.STORAGE,
@@ -0,0 +1,44 @@
+package Arcadia.ClexaGod.arcadia.storage.retry;
+
+/**
+ * Marks the current thread as a queue worker that re-schedules failed writes itself.
+ * While a context is active {@link RetryExecutor} does not sleep between attempts; it throws
+ * {@link RetryDeferredException} and the caller re-enqueues the task after the delay.
+ */
+public final class RetryContext {
+
+    private static final ThreadLocal<RetryContext> CURRENT = new ThreadLocal<>();
+
+    private final int attempt;
+    private boolean exhausted;
+
+    private RetryContext(int attempt) {
+        this.attempt = Math.max(1, attempt);
+    }
+
+    public static RetryContext enter(int attempt) {
+        RetryContext context = new RetryContext(attempt);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static RetryContext current() {
+        return CURRENT.get();
+    }
+
+    public void exit() {
+        CURRENT.remove();
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    void markExhausted() {
+        exhausted = true;
+    }
+}
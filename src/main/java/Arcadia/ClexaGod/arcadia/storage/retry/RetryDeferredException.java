@@ -0,0 +1,18 @@
+package Arcadia.ClexaGod.arcadia.storage.retry;
+
+import lombok.Getter;
+
+@Getter
+public final class RetryDeferredException extends RuntimeException {
+
+    private final String operation;
+    private final int attempt;
+    private final long delayMs;
+
+    public RetryDeferredException(String operation, int attempt, long delayMs, Throwable cause) {
+        super(operation + " failed on attempt " + attempt + ", retry in " + delayMs + "ms", cause);
+        this.operation = operation;
+        this.attempt = attempt;
+        this.delayMs = delayMs;
+    }
+}
@@ -13,6 +13,10 @@ public final class RetryExecutor {
     public static RetryOutcome run(RetryPolicy policy, LogService logService, LogCategory category, String operation, Runnable action) {
         RetryPolicy effective = policy != null ? policy : RetryPolicy.disabled();
         int maxAttempts = Math.max(1, effective.maxAttempts());
+        RetryContext context = RetryContext.current();
+        if (context != null && effective.enabled()) {
+            return runDeferred(context, effective, maxAttempts, logService, category, operation, action);
+        }
         int attempt = 0;
         Exception last = null;
         while (attempt < maxAttempts) {
@@ -42,4 +46,26 @@ public final class RetryExecutor {
         }
         return new RetryOutcome(false, last, attempt);
     }
+
+    private static RetryOutcome runDeferred(RetryContext context, RetryPolicy policy, int maxAttempts, LogService logService,
+                                            LogCategory category, String operation, Runnable action) {
+        int attempt = context.getAttempt();
+        try {
+            action.run();
+            return new RetryOutcome(true, null, attempt);
+        } catch (RetryDeferredException e) {
+            throw e;
+        } catch (Exception e) {
+            if (attempt >= maxAttempts) {
+                context.markExhausted();
+                return new RetryOutcome(false, e, attempt);
+            }
+            long delay = policy.nextDelayMillis(attempt);
+            if (logService != null && category != null) {
+                logService.warn(category,
+                        I18n.get().tr(LangKeys.LOG_STORAGE_RETRYING, operation, attempt, maxAttempts, delay));
+            }
+            throw new RetryDeferredException(operation, attempt, delay, e);
+        }
+    }
 }